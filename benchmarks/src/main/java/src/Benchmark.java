@@ -0,0 +1,477 @@
+package src;
+
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import src.Analysis.StatTracker;
+
+/**
+ * Small stand-alone timing harness for comparing implementations on the
+ * larger configurations of the Runner grid, for what the JMH benchmarks
+ * don't cover: scaling over thread counts, allocation, and whole
+ * generation, file and sweep runs. Usage:
+ *
+ * java -cp benchmarks/target/benchmarks.jar src.Benchmark [mode] [k]
+ *      [nodesPerSet] [density] [repetitions]
+ *
+ * mode is one of:
+ *  generation - times createRandomConnectedGraphSimplified across the
+ *           Runner density sweep for every edge sampling mode; here the
+ *           density argument is the max degree fraction (1.0 = no limit)
+ *  sweep - runs a reduced Runner grid (only the given k and nodesPerSet,
+ *           every density and max degree) with 1, 2, 4, ... threads up
+ *           to the number of cores and reports the wall time of each
+ *  exact - solves graphs with ExactColoring and reports how many colors
+ *           every Analysis function uses above the optimum; use a small
+ *           nodesPerSet, since the search is exponential
+ *  parallel - times analyzeStrictDecreasing and the parallel functions on
+ *           the same graphs on a pool of 1, 2, 4, ... threads up to the
+ *           number of cores
+ *  graphfile - writes a graph and its coloring with GraphFile, reads it
+ *           back and reports both times; the read time includes copying
+ *           the arrays out of the mapping
+ *  stream - builds the same graphs through BasicGraph and through
+ *           EdgeStream and reports the time and the bytes allocated by each
+ *  blocks - times BlockGenerator on 1, 2, 4, ... threads up to the number
+ *           of cores against EdgeStream; here the density argument is the
+ *           max degree fraction
+ *  connectivity - finds the components of graphs from createEdgeStream,
+ *           which need not be connected, with Connectivity on 1, 2, 4, ...
+ *           threads up to the number of cores, and times it against a
+ *           plain breadth-first search
+ *  import - writes a graph as a DIMACS file and reads it back with
+ *           GraphImporter on 1, 2, 4, ... threads, reporting edges per
+ *           second; "Benchmark import FILE" reads FILE instead
+ *
+ * The default mode is sweep, and the other defaults are the largest
+ * configuration in the grid: k = 20, 100 * k nodes, density 1.0 and no max
+ * degree limit. The time of single functions on a prebuilt graph is
+ * measured by ColoringBenchmark and VerifyBenchmark instead.
+ */
+public class Benchmark {
+
+	public static void main(String[] args) {
+		String mode = args.length > 0 ? args[0] : "sweep";
+		if (mode.equals("import") && args.length == 2 && new File(args[1]).isFile()) {
+			importFile(new File(args[1]));
+			return;
+		}
+		int k = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+		int nodeNum = (args.length > 2 ? Integer.parseInt(args[2]) : 100) * k;
+		double density = args.length > 3 ? Double.parseDouble(args[3]) : 1.0;
+		int reps = args.length > 4 ? Integer.parseInt(args[4]) : 5;
+
+		if (mode.equals("sweep")) {
+			sweep(k, nodeNum / k, reps);
+		} else if (mode.equals("exact")) {
+			exact(k, nodeNum, density, reps);
+		} else if (mode.equals("parallel")) {
+			parallel(k, nodeNum, density, reps);
+		} else if (mode.equals("graphfile")) {
+			graphFile(k, nodeNum, density, reps);
+		} else if (mode.equals("import")) {
+			importGenerated(k, nodeNum, density, reps);
+		} else if (mode.equals("blocks")) {
+			blocks(k, nodeNum, reps, density);
+		} else if (mode.equals("connectivity")) {
+			connectivity(k, nodeNum, density, reps);
+		} else if (mode.equals("stream")) {
+			stream(k, nodeNum, density, reps);
+		} else if (mode.equals("generation")) {
+			generation(k, nodeNum, reps, density);
+		} else {
+			throw new IllegalArgumentException("Unknown mode " + mode);
+		}
+	}
+
+	/*
+	 * Generates graphs over the density sweep of the Runner grid, with
+	 * every GraphCreator.EdgeSampling mode, and reports the mean number of
+	 * edges and generation time per graph. maxD is the fraction of the
+	 * largest possible degree used as the max degree, as in Runner.
+	 */
+	static void generation(int k, int nodeNum, int reps, double maxD) {
+		int[] setSizes = Sweep.setSizes(nodeNum, k);
+		int maxDeg = Sweep.maxDegree(nodeNum, k, maxD);
+		System.out.println("k=" + k + ", nodes=" + nodeNum + ", maxDegree=" + maxDeg 
+				+ ", repetitions=" + reps);
+		String header = "Density";
+		for (GraphCreator.EdgeSampling sampling : GraphCreator.EdgeSampling.values()) {
+			header += ", Edges " + sampling + ", Generation " + sampling + " (ms)";
+		}
+		System.out.println(header);
+
+		Random random = new Random();
+		for (double density = 0.1; density <= 1.0; density += 0.1) {
+			String line = String.format("%.1f", density);
+			for (GraphCreator.EdgeSampling sampling : GraphCreator.EdgeSampling.values()) {
+				long duration = 0;
+				long edges = 0;
+				// one throw-away graph so the generator is compiled before timing
+				for (int c = -1; c < reps; c++) {
+					long startTime = System.nanoTime();
+					BasicGraph graph = GraphCreator.createRandomConnectedGraphSimplified(
+							nodeNum, k, density, maxDeg, setSizes, random, sampling);
+					if (c >= 0) {
+						duration += System.nanoTime() - startTime;
+						edges += graph.numEdges();
+					}
+				}
+				line += ", " + (edges / reps) + ", " + String.format("%.3f", duration / 1e6 / reps);
+			}
+			System.out.println(line);
+		}
+	}
+
+	/*
+	 * Builds every graph twice from the same seed, as a BasicGraph turned
+	 * into a CompactGraph and straight from an EdgeStream, and reports the
+	 * mean time and bytes allocated by each way
+	 */
+	static void stream(int k, int nodeNum, double density, int reps) {
+		com.sun.management.ThreadMXBean bean = 
+				(com.sun.management.ThreadMXBean)ManagementFactory.getThreadMXBean();
+		long thread = Thread.currentThread().getId();
+		int[] setSizes = Sweep.setSizes(nodeNum, k);
+		int maxDeg = Sweep.maxDegree(nodeNum, k, 1.0);
+		System.out.println("k=" + k + ", nodes=" + nodeNum + ", density=" + density
+				+ ", maxDegree=" + maxDeg + ", repetitions=" + reps);
+		long[] duration = new long[2];
+		long[] allocated = new long[2];
+		long edges = 0;
+		// one throw-away round so both ways are compiled before timing
+		for (int c = -1; c < reps; c++) {
+			long seed = c;
+			long before = bean.getThreadAllocatedBytes(thread);
+			long startTime = System.nanoTime();
+			CompactGraph objects = new CompactGraph(GraphCreator.createRandomConnectedGraphSimplified(
+					nodeNum, k, density, maxDeg, setSizes, new Random(seed)));
+			long objectsTime = System.nanoTime() - startTime;
+			long objectsBytes = bean.getThreadAllocatedBytes(thread) - before;
+
+			before = bean.getThreadAllocatedBytes(thread);
+			startTime = System.nanoTime();
+			CompactGraph streamed = GraphCreator.createConnectedEdgeStream(
+					nodeNum, k, density, maxDeg, setSizes, seed).toCompactGraph();
+			long streamTime = System.nanoTime() - startTime;
+			long streamBytes = bean.getThreadAllocatedBytes(thread) - before;
+
+			if (c >= 0) {
+				duration[0] += objectsTime;
+				duration[1] += streamTime;
+				allocated[0] += objectsBytes;
+				allocated[1] += streamBytes;
+				edges += streamed.numEdges();
+			}
+		}
+		System.out.println("edges per graph: " + edges / reps);
+		System.out.println("Generator, Time (ms), Allocated (MB)");
+		System.out.println("BasicGraph, " + String.format("%.3f", duration[0] / 1e6 / reps)
+				+ ", " + String.format("%.1f", allocated[0] / 1e6 / reps));
+		System.out.println("EdgeStream, " + String.format("%.3f", duration[1] / 1e6 / reps)
+				+ ", " + String.format("%.1f", allocated[1] / 1e6 / reps));
+	}
+
+	/*
+	 * Times BlockGenerator on thread pools of increasing size at density 0.5
+	 * and the given max degree fraction, and times
+	 * EdgeStream on the same parameters for comparison
+	 */
+	static void blocks(int k, int nodeNum, int reps, double maxD) {
+		int[] setSizes = Sweep.setSizes(nodeNum, k);
+		int maxDeg = Sweep.maxDegree(nodeNum, k, maxD);
+		double density = 0.5;
+		int cores = Runtime.getRuntime().availableProcessors();
+		System.out.println("k=" + k + ", nodes=" + nodeNum + ", density=" + density
+				+ ", maxDegree=" + maxDeg + ", repetitions=" + reps + ", cores=" + cores);
+		System.out.println("Generator, Threads, Edges, Generation (ms), Speedup");
+		long single = 0;
+		for (int c = -1; c < reps; c++) {
+			long startTime = System.nanoTime();
+			CompactGraph cg = GraphCreator.createConnectedEdgeStream(nodeNum, k, density,
+					maxDeg, setSizes, c).toCompactGraph();
+			if (c == reps - 1) {
+				single = (System.nanoTime() - startTime) * reps;
+				System.out.println("EdgeStream, 1, " + cg.numEdges() + ", " 
+						+ String.format("%.3f", single / 1e6 / reps) + ", 1.00x");
+			}
+		}
+		for (int threads = 1; threads <= cores; threads *= 2) {
+			ForkJoinPool pool = new ForkJoinPool(threads);
+			long duration = 0;
+			long edges = 0;
+			try {
+				// one throw-away graph so the generator is compiled before timing
+				for (int c = -1; c < reps; c++) {
+					long startTime = System.nanoTime();
+					CompactGraph cg = GraphCreator.createCompactConnectedGraphParallel(nodeNum, k,
+							density, maxDeg, setSizes, c, pool);
+					if (c >= 0) {
+						duration += System.nanoTime() - startTime;
+						edges += cg.numEdges();
+					}
+				}
+			} finally {
+				pool.shutdownNow();
+			}
+			System.out.println("BlockGenerator, " + threads + ", " + (edges / reps) + ", "
+					+ String.format("%.3f", duration / 1e6 / reps) + ", "
+					+ String.format("%.2fx", (double)single / duration));
+		}
+	}
+
+	/*
+	 * Reports the mean time Connectivity takes on thread pools of
+	 * increasing size, and that of a plain breadth-first search labelling
+	 * the components with a queue of Integers and a boolean array
+	 */
+	static void connectivity(int k, int nodeNum, double density, int reps) {
+		int cores = Runtime.getRuntime().availableProcessors();
+		CompactGraph[] graphs = new CompactGraph[reps];
+		for (int c = 0; c < reps; c++) {
+			graphs[c] = GraphCreator.createEdgeStream(nodeNum, k, density,
+					Sweep.maxDegree(nodeNum, k, 1.0), Sweep.setSizes(nodeNum, k), c).toCompactGraph();
+		}
+		System.out.println("k=" + k + ", nodes=" + nodeNum + ", density=" + density
+				+ ", edges=" + graphs[0].numEdges() + ", repetitions=" + reps + ", cores=" + cores);
+		System.out.println("Search, Threads, Components, Time (ms)");
+		int found = 0;
+		long duration = 0;
+		for (int c = -1; c < reps; c++) {
+			CompactGraph g = graphs[Math.max(c, 0)];
+			long startTime = System.nanoTime();
+			boolean[] seen = new boolean[g.numNodes];
+			java.util.ArrayDeque<Integer> queue = new java.util.ArrayDeque<Integer>();
+			int count = 0;
+			for (int s = 0; s < g.numNodes; s++) {
+				if (seen[s])
+					continue;
+				seen[s] = true;
+				queue.add(s);
+				while (!queue.isEmpty()) {
+					int u = queue.poll();
+					for (int i = g.offsets[u]; i < g.offsets[u + 1]; i++) {
+						if (!seen[g.neighbors[i]]) {
+							seen[g.neighbors[i]] = true;
+							queue.add(g.neighbors[i]);
+						}
+					}
+				}
+				count++;
+			}
+			if (c >= 0) {
+				duration += System.nanoTime() - startTime;
+				found = count;
+			}
+		}
+		System.out.println("Plain, 1, " + found + ", " + String.format("%.3f", duration / 1e6 / reps));
+		for (int threads = 1; threads <= cores; threads *= 2) {
+			ForkJoinPool pool = new ForkJoinPool(threads);
+			duration = 0;
+			try {
+				// one throw-away round so the search is compiled before timing
+				for (int c = -1; c < reps; c++) {
+					Connectivity components = Connectivity.components(graphs[Math.max(c, 0)], pool);
+					if (c >= 0) {
+						duration += components.duration;
+					}
+				}
+			} finally {
+				pool.shutdownNow();
+			}
+			System.out.println("Connectivity, " + threads + ", " + found + ", "
+					+ String.format("%.3f", duration / 1e6 / reps));
+		}
+	}
+
+	/*
+	 * Times the same reduced grid on thread pools of increasing size
+	 */
+	static void sweep(int k, int nodesPerSet, int reps) {
+		Sweep sweep = new Sweep(new int[] {k}, new int[] {nodesPerSet}, 0.1, 1.0, 0.1,
+				0.1, 1.0, 0.1, reps, 0, new Random().nextLong());
+		int cores = Runtime.getRuntime().availableProcessors();
+		System.out.println("k=" + k + ", nodes=" + (nodesPerSet * k) + ", rows="
+				+ (sweep.configurations.size() * Analysis.functions.length) + ", repetitions=" + reps + ", cores=" + cores);
+		System.out.println("Threads, Wall time (ms), Speedup");
+		double single = 0;
+		for (int threads = 1; threads <= cores; threads *= 2) {
+			ForkJoinPool pool = new ForkJoinPool(threads);
+			long startTime = System.nanoTime();
+			try {
+				File out = File.createTempFile("sweep", ".csv");
+				out.deleteOnExit();
+				ResultSink sink = new ResultSink(out, "TestID", false, 1024, 100);
+				sweep.run(pool, Analysis.defaultPool, sink);
+				sink.close();
+			} catch (Exception e) {
+				throw new RuntimeException(e);
+			} finally {
+				pool.shutdownNow();
+			}
+			double ms = (System.nanoTime() - startTime) / 1e6;
+			if (threads == 1)
+				single = ms;
+			System.out.println(threads + ", " + String.format("%.1f", ms) + ", " 
+					+ String.format("%.2fx", single / ms));
+		}
+	}
+
+	/*
+	 * Solves every graph exactly, with a limit of 10 seconds, and colors
+	 * it with every function
+	 */
+	static void exact(int k, int nodeNum, double density, int reps) {
+		System.out.println("k=" + k + ", nodes=" + nodeNum + ", density=" + density
+				+ ", repetitions=" + reps);
+		String header = "Clique, Colors, Optimal, Search nodes, Exact (ms)";
+		for (Analysis.StatTestFunction function : Analysis.functions) {
+			header += ", " + function;
+		}
+		System.out.println(header);
+		for (int c = 0; c < reps; c++) {
+			CompactGraph cg = GraphCreator.createCompactConnectedGraphSimplified(nodeNum, k, density, 
+					Sweep.maxDegree(nodeNum, k, 1.0), Sweep.setSizes(nodeNum, k));
+			ExactColoring solution = ExactColoring.solve(cg, Analysis.defaultPool, 
+					Long.MAX_VALUE, 10000000000L);
+			String line = solution.lowerBound + ", " + solution.colors + ", " + solution.optimal 
+					+ ", " + solution.nodes + ", " + String.format("%.1f", solution.duration / 1e6);
+			Coloring coloring = new Coloring(cg.numNodes);
+			for (Analysis.StatTestFunction function : Analysis.functions) {
+				coloring.reset();
+				line += ", +" + (function.runTest(cg, coloring).my_color_count - solution.colors);
+			}
+			System.out.println(line);
+		}
+	}
+
+	/*
+	 * Reports the mean coloring time and colors of the sequential baseline
+	 * and every parallel function for each pool size, with the speedup
+	 * over the baseline
+	 */
+	static void parallel(int k, int nodeNum, double density, int reps) {
+		Analysis.StatTestFunction[] tests = {
+			new Analysis.analyzeStrictDecreasingFunction(),
+			new Analysis.analyzeJonesPlassmann(),
+			new Analysis.analyzeSpeculative()
+		};
+		CompactGraph cg = GraphCreator.createCompactConnectedGraphSimplified(
+				nodeNum, k, density, Sweep.maxDegree(nodeNum, k, 1.0), Sweep.setSizes(nodeNum, k));
+		Coloring coloring = new Coloring(cg.numNodes);
+		int cores = Runtime.getRuntime().availableProcessors();
+		System.out.println("k=" + k + ", nodes=" + nodeNum + ", edges=" + cg.numEdges()
+				+ ", repetitions=" + reps + ", cores=" + cores);
+		System.out.println("Threads, Test_Type, Coloring (ms), Colors, Speedup, Rounds, First round conflicts");
+		for (int threads = 1; threads <= cores; threads *= 2) {
+			ForkJoinPool pool = new ForkJoinPool(threads);
+			double baseline = 0;
+			for (Analysis.StatTestFunction test : tests) {
+				StatTracker stats = new StatTracker();
+				// one throw-away round so the function is compiled before timing
+				for (int c = -1; c < reps; c++) {
+					coloring.reset();
+					StatTracker tracker = test.runTest(cg, coloring, pool);
+					if (c >= 0)
+						stats.addTracker(tracker);
+				}
+				double ms = stats.mean() / 1e6;
+				if (baseline == 0)
+					baseline = ms;
+				System.out.println(threads + ", " + test + ", " + String.format("%.3f", ms) + ", "
+						+ String.format("%.1f", (double)stats.my_color_count / reps) + ", "
+						+ String.format("%.2fx", baseline / ms) + ", "
+						+ String.format("%.1f", (double)stats.rounds() / reps) + ", "
+						+ String.format("%.1f", (double)stats.conflicts(0) / reps));
+			}
+			pool.shutdownNow();
+		}
+	}
+
+	/*
+	 * Round trips a colored graph through GraphFile and checks that the
+	 * graph read back still has a valid coloring
+	 */
+	static void graphFile(int k, int nodeNum, double density, int reps) {
+		CompactGraph cg = GraphCreator.createCompactConnectedGraphSimplified(
+				nodeNum, k, density, Sweep.maxDegree(nodeNum, k, 1.0), Sweep.setSizes(nodeNum, k));
+		Coloring coloring = new Coloring(cg.numNodes);
+		for (int v = 0; v < cg.numNodes; v++) {
+			Analysis.color(cg, coloring, v);
+		}
+		System.out.println("k=" + k + ", nodes=" + nodeNum + ", edges=" + cg.numEdges()
+				+ ", repetitions=" + reps);
+		System.out.println("Write (ms), Read (ms)");
+		try {
+			File file = File.createTempFile("graph", ".cgr");
+			file.deleteOnExit();
+			for (int c = -1; c < reps; c++) {
+				long startTime = System.nanoTime();
+				GraphFile.write(file, cg, coloring);
+				long written = System.nanoTime();
+				GraphFile loaded = GraphFile.read(file);
+				long read = System.nanoTime();
+				if (c >= 0)
+					System.out.println(String.format("%.3f", (written - startTime) / 1e6) + ", "
+							+ String.format("%.3f", (read - written) / 1e6));
+			}
+		} catch (java.io.IOException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	/*
+	 * Writes a generated graph as a DIMACS file and times reading it back
+	 */
+	static void importGenerated(int k, int nodeNum, double density, int reps) {
+		CompactGraph cg = GraphCreator.createCompactConnectedGraphSimplified(
+				nodeNum, k, density, Sweep.maxDegree(nodeNum, k, 1.0), Sweep.setSizes(nodeNum, k));
+		System.out.println("k=" + k + ", nodes=" + nodeNum + ", density=" + density
+				+ ", repetitions=" + reps);
+		try {
+			File file = File.createTempFile("graph", ".col");
+			file.deleteOnExit();
+			java.io.Writer out = new java.io.BufferedWriter(new java.io.FileWriter(file));
+			try {
+				out.write("p edge " + cg.numNodes + " " + cg.numEdges() + "\n");
+				for (int v = 0; v < cg.numNodes; v++) {
+					for (int i = cg.offsets[v]; i < cg.offsets[v + 1]; i++) {
+						if (v < cg.neighbors[i])
+							out.write("e " + (v + 1) + " " + (cg.neighbors[i] + 1) + "\n");
+					}
+				}
+			} finally {
+				out.close();
+			}
+			for (int c = 0; c < reps; c++) {
+				importFile(file);
+			}
+		} catch (java.io.IOException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	/*
+	 * Reads file with 1, 2, 4, ... threads up to the number of cores
+	 */
+	static void importFile(File file) {
+		int cores = Runtime.getRuntime().availableProcessors();
+		System.out.println("Threads, Nodes, Edges, Import (ms), Edges/s");
+		for (int threads = 1; threads <= cores; threads *= 2) {
+			ForkJoinPool pool = new ForkJoinPool(threads);
+			try {
+				GraphImporter imported = GraphImporter.read(file, pool);
+				System.out.println(threads + ", " + imported.graph.numNodes + ", "
+						+ imported.graph.numEdges() + ", "
+						+ String.format("%.1f", imported.duration / 1e6) + ", "
+						+ String.format("%.0f", imported.edgesPerSecond()));
+			} catch (Exception e) {
+				throw new RuntimeException(e);
+			} finally {
+				pool.shutdownNow();
+			}
+		}
+	}
+}
@@ -0,0 +1,62 @@
+package src;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Time for each Analysis.StatTestFunction to color a pre-built graph, so
+ * that generation is not part of the measurement. runTest also verifies
+ * its coloring; VerifyBenchmark measures that part on its own.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ColoringBenchmark {
+
+	@Param({"200", "2000"})
+	public int n;
+
+	@Param({"3", "20"})
+	public int k;
+
+	@Param({"0.1", "0.5", "1.0"})
+	public double density;
+
+	@Param({"analyzeStrictDecreasing", "analyzeDecreasingNeighbors", 
+		"analyzeNumColored", "analyzeHighColor", "analyzeJonesPlassmann",
+		"analyzeSpeculative", "analyzeIteratedGreedy", "analyzeSmallestLast",
+		"analyzeIncidenceDegree"})
+	public String function;
+
+	private CompactGraph graph;
+	private Coloring coloring;
+	private Analysis.StatTestFunction func;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		graph = Fixtures.graph(n, k, density);
+		coloring = new Coloring(graph.numNodes);
+		func = Fixtures.function(function);
+	}
+
+	@Benchmark
+	public Analysis.StatTracker color() {
+		coloring.reset();
+		return func.runTest(graph, coloring);
+	}
+}
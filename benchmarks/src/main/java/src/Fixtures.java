@@ -0,0 +1,30 @@
+package src;
+
+import java.util.Random;
+
+/**
+ * Graphs and functions shared by the JMH benchmarks. Every graph is made
+ * from the same fixed seed, so a given (n, k, density) is the same graph
+ * in every run and in every version being compared.
+ */
+class Fixtures {
+
+	static final long SEED = 20140401L;
+
+	/*
+	 * The graph the Runner sweep would use for these parameters, without a
+	 * max degree limit
+	 */
+	static CompactGraph graph(int n, int k, double density) {
+		return new CompactGraph(GraphCreator.createRandomConnectedGraphSimplified(
+				n, k, density, n, Sweep.setSizes(n, k), new Random(SEED)));
+	}
+
+	static Analysis.StatTestFunction function(String name) {
+		for (Analysis.StatTestFunction func : Analysis.functions) {
+			if (func.name.equals(name))
+				return func;
+		}
+		throw new IllegalArgumentException("Unknown function " + name);
+	}
+}
@@ -0,0 +1,60 @@
+package src;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Time to create a graph with each of the GraphCreator factories. Every
+ * invocation starts from the same seed, so it creates the same graph.
+ * createRandomGraphFromTriangles only depends on n.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GeneratorBenchmark {
+
+	@Param({"200", "2000"})
+	public int n;
+
+	@Param({"3", "20"})
+	public int k;
+
+	@Param({"0.1", "0.5", "1.0"})
+	public double density;
+
+	@Benchmark
+	public BasicGraph createRandomConnectedGraphSimplified() {
+		return GraphCreator.createRandomConnectedGraphSimplified(n, k, density, n,
+				Sweep.setSizes(n, k), new Random(Fixtures.SEED));
+	}
+
+	@Benchmark
+	public BasicGraph createRandomGraph() {
+		return GraphCreator.createRandomGraph(n, k, density, n, new Random(Fixtures.SEED));
+	}
+
+	@Benchmark
+	public BasicGraph createRandomConnectedGraphFromLine() {
+		return GraphCreator.createRandomConnectedGraphFromLine(n, k, density, n,
+				new Random(Fixtures.SEED));
+	}
+
+	@Benchmark
+	public BasicGraph createRandomGraphFromTriangles() {
+		return GraphCreator.createRandomGraphFromTriangles(n, new Random(Fixtures.SEED));
+	}
+}
@@ -0,0 +1,74 @@
+package src;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Time for Analysis.verify to check a valid coloring of a pre-built graph,
+ * which means walking every edge, and for Verifier to check the colorings
+ * of every Analysis function in one pass.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class VerifyBenchmark {
+
+	@Param({"200", "2000"})
+	public int n;
+
+	@Param({"3", "20"})
+	public int k;
+
+	@Param({"0.1", "0.5", "1.0"})
+	public double density;
+
+	private CompactGraph graph;
+	private Coloring coloring;
+	private Coloring[] colorings;
+	private ForkJoinPool pool;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		pool = new ForkJoinPool();
+		graph = Fixtures.graph(n, k, density);
+		coloring = new Coloring(graph.numNodes);
+		Analysis.functions[0].runTest(graph, coloring);
+		colorings = new Coloring[Analysis.functions.length];
+		for (int f = 0; f < colorings.length; f++) {
+			colorings[f] = new Coloring(graph.numNodes);
+			Analysis.functions[f].runTest(graph, colorings[f]);
+		}
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		pool.shutdownNow();
+	}
+
+	@Benchmark
+	public boolean verify() {
+		return Analysis.verify(graph, coloring, pool);
+	}
+
+	@Benchmark
+	public long[] verifyAll() {
+		return Verifier.conflicts(graph, colorings, false, pool);
+	}
+}
@@ -1,8 +1,10 @@
 package src;
 
 import java.util.*;
-
-import src.BasicGraph.Node;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
 
 public class Analysis {
 	
@@ -13,25 +15,201 @@ public class Analysis {
 		protected long my_duration;
 		protected int my_color_count;
 		protected boolean my_correctness;
+		// the duration of every single run added to this tracker, in nanoseconds
+		protected long[] my_samples;
+		protected int my_sample_count;
+		// rounds taken by the iterative functions, and the conflicts found in each round
+		protected int my_rounds;
+		protected long[] my_round_conflicts;
+		// colors used over time by the improving functions: after 
+		// my_progress_times[i] ns into a run, my_progress_colors[i] colors
+		protected long[] my_progress_times;
+		protected int[] my_progress_colors;
+		protected int my_progress_count;
+		
+		/*
+		 * Empty tracker, which runs can be added to with addTracker
+		 */
+		public StatTracker() {
+			my_duration = 0;
+			my_color_count = 0;
+			my_correctness = true;
+			my_samples = new long[16];
+			my_sample_count = 0;
+			my_rounds = 0;
+			my_round_conflicts = new long[0];
+			my_progress_times = new long[0];
+			my_progress_colors = new int[0];
+			my_progress_count = 0;
+		}
 		
+		/*
+		 * Tracker for a single run
+		 */
 		public StatTracker(long duration, int colors_used, boolean is_correct) {
 			my_duration = duration;
 			my_color_count = colors_used;
 			my_correctness = is_correct;
+			my_samples = new long[] {duration};
+			my_sample_count = 1;
+			my_rounds = 0;
+			my_round_conflicts = new long[0];
+			my_progress_times = new long[0];
+			my_progress_colors = new int[0];
+			my_progress_count = 0;
 		}
 		
 		public void addTracker(StatTracker st) {
 			my_duration += st.my_duration;
 			my_color_count += st.my_color_count;
 			my_correctness = my_correctness && st.my_correctness;
+			if (my_sample_count + st.my_sample_count > my_samples.length) {
+				my_samples = Arrays.copyOf(my_samples, 
+						Math.max(2 * my_samples.length, my_sample_count + st.my_sample_count));
+			}
+			System.arraycopy(st.my_samples, 0, my_samples, my_sample_count, st.my_sample_count);
+			my_sample_count += st.my_sample_count;
+			// rounds are summed over runs, round by round
+			my_rounds += st.my_rounds;
+			if (st.my_round_conflicts.length > my_round_conflicts.length) {
+				my_round_conflicts = Arrays.copyOf(my_round_conflicts, st.my_round_conflicts.length);
+			}
+			for (int r = 0; r < st.my_round_conflicts.length; r++) {
+				my_round_conflicts[r] += st.my_round_conflicts[r];
+			}
+			// progress of every run is kept, each relative to the start of its run
+			for (int i = 0; i < st.my_progress_count; i++) {
+				addProgress(st.my_progress_times[i], st.my_progress_colors[i]);
+			}
+		}
+		
+		/*
+		 * Records that a run was using colors colors after time nanoseconds
+		 */
+		public void addProgress(long time, int colors) {
+			if (my_progress_count == my_progress_times.length) {
+				int capacity = Math.max(16, 2 * my_progress_count);
+				my_progress_times = Arrays.copyOf(my_progress_times, capacity);
+				my_progress_colors = Arrays.copyOf(my_progress_colors, capacity);
+			}
+			my_progress_times[my_progress_count] = time;
+			my_progress_colors[my_progress_count++] = colors;
+		}
+		
+		public int progressCount() {
+			return my_progress_count;
+		}
+		
+		/*
+		 * Records that a run took another round, which found conflicts 
+		 * vertices that had to be colored again
+		 */
+		public void addRound(long conflicts) {
+			my_round_conflicts = Arrays.copyOf(my_round_conflicts, my_rounds + 1);
+			my_round_conflicts[my_rounds++] = conflicts;
+		}
+		
+		public int rounds() {
+			return my_rounds;
+		}
+		
+		// conflicts found in the given round, starting from 0
+		public long conflicts(int round) {
+			return round < my_round_conflicts.length ? my_round_conflicts[round] : 0;
+		}
+		
+		public int sampleCount() {
+			return my_sample_count;
+		}
+		
+		public double mean() {
+			long sum = 0;
+			for (int i = 0; i < my_sample_count; i++) {
+				sum += my_samples[i];
+			}
+			return my_sample_count == 0 ? 0 : (double)sum / my_sample_count;
+		}
+		
+		/*
+		 * The sample below which a fraction p of the samples lie (nearest 
+		 * rank), e.g. percentile(0.5) is the median
+		 */
+		public long percentile(double p) {
+			if (my_sample_count == 0)
+				return 0;
+			long[] sorted = Arrays.copyOf(my_samples, my_sample_count);
+			Arrays.sort(sorted);
+			int rank = (int)Math.ceil(p * my_sample_count);
+			return sorted[Math.min(Math.max(rank - 1, 0), my_sample_count - 1)];
+		}
+		
+		public long median() {
+			return percentile(0.5);
+		}
+		
+		public long min() {
+			return percentile(0);
+		}
+		
+		public long max() {
+			return percentile(1);
+		}
+		
+		// sample standard deviation
+		public double stdDev() {
+			if (my_sample_count < 2)
+				return 0;
+			double mean = mean();
+			double sum = 0;
+			for (int i = 0; i < my_sample_count; i++) {
+				sum += (my_samples[i] - mean) * (my_samples[i] - mean);
+			}
+			return Math.sqrt(sum / (my_sample_count - 1));
 		}
 		
+		/*
+		 * Half width of the 95% confidence interval of the mean, using 
+		 * Student's t distribution since there are usually only a few runs
+		 */
+		public double confidenceInterval95() {
+			if (my_sample_count < 2)
+				return 0;
+			int df = my_sample_count - 1;
+			double t = df <= T_95.length ? T_95[df - 1] : 1.960;
+			return t * stdDev() / Math.sqrt(my_sample_count);
+		}
+		
+		// two-sided 95% critical values of Student's t for 1 to 30 degrees of freedom
+		private static final double[] T_95 = {
+			12.706, 4.303, 3.182, 2.776, 2.571, 2.447, 2.365, 2.306, 2.262, 2.228,
+			2.201, 2.179, 2.160, 2.145, 2.131, 2.120, 2.110, 2.101, 2.093, 2.086,
+			2.080, 2.074, 2.069, 2.064, 2.060, 2.056, 2.052, 2.048, 2.045, 2.042
+		};
+		
 		public String toString() {
 			StringBuffer ret_str = new StringBuffer();
 			ret_str.append("Total Number of Colors Used: " + my_color_count + "\n");
 			ret_str.append("Total Time For Analysis (in nanoseconds): " + String.valueOf(my_duration) + "\n");
 			ret_str.append("Total Time For Analysis (in seconds): " + String.valueOf(my_duration/1000000000.0) + "\n");
 			ret_str.append("Successfully k-colored the graph: " + String.valueOf(my_correctness) + "\n");
+			if (my_sample_count > 1) {
+				ret_str.append("Runs: " + my_sample_count + ", mean: " + mean() + " +/- " 
+						+ confidenceInterval95() + " ns (95%), median: " + median() 
+						+ " ns, p90: " + percentile(0.9) + " ns, p99: " + percentile(0.99)
+						+ " ns, min: " + min() + " ns, max: " + max() + " ns, stddev: " 
+						+ stdDev() + " ns\n");
+			}
+			if (my_rounds > 0) {
+				ret_str.append("Rounds: " + my_rounds + ", conflicts per round: " 
+						+ Arrays.toString(my_round_conflicts) + "\n");
+			}
+			if (my_progress_count > 0) {
+				ret_str.append("Colors over time:");
+				for (int i = 0; i < my_progress_count; i++) {
+					ret_str.append(" " + my_progress_colors[i] + " at " + my_progress_times[i] + " ns");
+				}
+				ret_str.append("\n");
+			}
 			return ret_str.toString();
 		}
 	};
@@ -48,7 +226,37 @@ public class Analysis {
 			this.name = name;
 		}
 		
-		public abstract StatTracker runTest(BasicGraph g);
+		/**
+		 * Colors g into c, which must be all 0 (uncolored) to begin with.
+		 * g itself is only read, so several functions can color the same
+		 * graph, one after the other or at the same time.
+		 */
+		public abstract StatTracker runTest(CompactGraph g, Coloring c);
+		
+		/**
+		 * Colors g into c like runTest(g, c), with the parallel functions
+		 * working on pool instead of Analysis.defaultPool; the others 
+		 * ignore it.
+		 */
+		public StatTracker runTest(CompactGraph g, Coloring c, ForkJoinPool pool) {
+			return runTest(g, c);
+		}
+		
+		/**
+		 * @return whether runTest colors on a pool, so its time depends on
+		 * whatever else runs at the same time
+		 */
+		public boolean isParallel() {
+			return false;
+		}
+		
+		public StatTracker runTest(CompactGraph g) {
+			return runTest(g, new Coloring(g.numNodes));
+		}
+		
+		public StatTracker runTest(BasicGraph g) {
+			return runTest(new CompactGraph(g));
+		}
 		
 		public String toString() {
 			return name;
@@ -64,9 +272,22 @@ public class Analysis {
 		// new analyzeStrictIncreasing(),
 		// new analyzeIncreasingNeighbors(),
 		new analyzeNumColored(),
-		new analyzeHighColor()
+		new analyzeHighColor(),
+		new analyzeJonesPlassmann(),
+		new analyzeSpeculative(),
+		new analyzeIteratedGreedy(),
+		// no LARGEST_FIRST: every graph source already sorts by degree
+		new analyzeOrdered(Ordering.Type.SMALLEST_LAST),
+		new analyzeOrdered(Ordering.Type.INCIDENCE_DEGREE)
 	};
 	
+	/**
+	 * Pool the parallel test functions and verify use when they are not
+	 * given one. Callers timing the parallel functions pass their own pool
+	 * and keep other work from running meanwhile, as Sweep does.
+	 */
+	static final ForkJoinPool defaultPool = new ForkJoinPool();
+	
 	
 	/*
 	 * General notes:
@@ -95,19 +316,14 @@ public class Analysis {
 		}
 		
 		@Override
-		public StatTracker runTest(BasicGraph g) {
+		public StatTracker runTest(CompactGraph g, Coloring c) {
 			long startTime = System.nanoTime();
 			int numColors = 0;
-			LinkedList<Node> unvisited = new LinkedList<Node>();
-			for (Node n : g.allNodes) {
-				unvisited.add(n);
-			}
 			
 			//colors will start from 1; 0 means not yet colored
-			while (!unvisited.isEmpty()) {
-				Node current = unvisited.pop();
-				color(current, g.allNodes.size());
-				if (current.color > numColors) {					
+			for (int current = 0; current < g.numNodes; current++) {
+				color(g, c, current);
+				if (c.color[current] > numColors) {
 					numColors++;
 				}
 			}
@@ -115,7 +331,7 @@ public class Analysis {
 			long endTime = System.nanoTime();
 			long duration = endTime - startTime;
 			
-			StatTracker tracker = new StatTracker(duration, numColors, verify(g));
+			StatTracker tracker = new StatTracker(duration, numColors, verify(g, c));
 			if (tracker.my_correctness == false) {
 				throw new Error(this.name + " colored incorrectly!\n");
 			}
@@ -137,38 +353,35 @@ public class Analysis {
 		}
 		
 		@Override
-		public StatTracker runTest(BasicGraph g) {
+		public StatTracker runTest(CompactGraph g, Coloring c) {
 			long startTime = System.nanoTime();
 			int numColors = 0;
-			LinkedList<Node> unvisited = new LinkedList<Node>();
-			for (Node n : g.allNodes) {
-				unvisited.add(n);
-			}
 			
 			//colors will start from 1; 0 means not yet colored
-			while (!unvisited.isEmpty()) {
-				Node current = unvisited.pop();
-				if (current.color == 0) {
-					color(current, g.allNodes.size());
-					if (current.color > numColors) {
+			for (int current = 0; current < g.numNodes; current++) {
+				if (c.color[current] == 0) {
+					color(g, c, current);
+					if (c.color[current] > numColors) {
 						numColors++;
 					}
 				}
 				
 				//This will color neighbors of current node
-				for (Node n : current.connections) {
-					if (n.color == 0) {
-						color(n, g.allNodes.size());
-						if (n.color > numColors) {
+				for (int i = g.offsets[current]; i < g.offsets[current + 1]; i++) {
+					int n = g.neighbors[i];
+					if (c.color[n] == 0) {
+						color(g, c, n);
+						if (c.color[n] > numColors) {
 							numColors++;
 						}
 					}
 				}
 			}
+			
 			long endTime = System.nanoTime();
 			long duration = endTime - startTime;
 			
-			StatTracker tracker = new StatTracker(duration, numColors, verify(g));
+			StatTracker tracker = new StatTracker(duration, numColors, verify(g, c));
 			if (tracker.my_correctness == false) {
 				throw new Error(this.name + " colored incorrectly!\n");
 			}
@@ -183,19 +396,14 @@ public class Analysis {
 		}
 		
 		@Override
-		public StatTracker runTest(BasicGraph g) {
+		public StatTracker runTest(CompactGraph g, Coloring c) {
 			long startTime = System.nanoTime();
 			int numColors = 0;
-			LinkedList<Node> unvisited = new LinkedList<Node>();
-			for (Node n : g.allNodes) {
-				unvisited.push(n);
-			}
 			
 			//colors will start from 1; 0 means not yet colored
-			while (!unvisited.isEmpty()) {
-				Node current = unvisited.pop();
-				color(current, g.allNodes.size());
-				if (current.color > numColors) {					
+			for (int current = g.numNodes - 1; current >= 0; current--) {
+				color(g, c, current);
+				if (c.color[current] > numColors) {
 					numColors++;
 				}
 			}
@@ -203,7 +411,7 @@ public class Analysis {
 			long endTime = System.nanoTime();
 			long duration = endTime - startTime;
 			
-			StatTracker tracker = new StatTracker(duration, numColors, verify(g));
+			StatTracker tracker = new StatTracker(duration, numColors, verify(g, c));
 			if (tracker.my_correctness == false) {
 				throw new Error(this.name + " colored incorrectly!\n");
 			}
@@ -218,38 +426,35 @@ public class Analysis {
 		}
 		
 		@Override
-		public StatTracker runTest(BasicGraph g) {
+		public StatTracker runTest(CompactGraph g, Coloring c) {
 			long startTime = System.nanoTime();
 			int numColors = 0;
-			LinkedList<Node> unvisited = new LinkedList<Node>();
-			for (Node n : g.allNodes) {
-				unvisited.push(n);
-			}
 			
 			//colors will start from 1; 0 means not yet colored
-			while (!unvisited.isEmpty()) {
-				Node current = unvisited.pop();
-				if (current.color == 0) {
-					color(current, g.allNodes.size());
-					if (current.color > numColors) {
+			for (int current = g.numNodes - 1; current >= 0; current--) {
+				if (c.color[current] == 0) {
+					color(g, c, current);
+					if (c.color[current] > numColors) {
 						numColors++;
 					}
 				}
 				
 				//This will color neighbors of current node
-				for (Node n : current.connections) {
-					if (n.color == 0) {
-						color(n, g.allNodes.size());
-						if (n.color > numColors) {
+				for (int i = g.offsets[current]; i < g.offsets[current + 1]; i++) {
+					int n = g.neighbors[i];
+					if (c.color[n] == 0) {
+						color(g, c, n);
+						if (c.color[n] > numColors) {
 							numColors++;
 						}
 					}
 				}
 			}
+			
 			long endTime = System.nanoTime();
 			long duration = endTime - startTime;
-
-			StatTracker tracker = new StatTracker(duration, numColors, verify(g));
+			
+			StatTracker tracker = new StatTracker(duration, numColors, verify(g, c));
 			if (tracker.my_correctness == false) {
 				throw new Error(this.name + " colored incorrectly!\n");
 			}
@@ -263,6 +468,9 @@ public class Analysis {
 	 * highest number colored to lowest.  It starts off by coloring 
 	 * the nodes of highest degree (number of vertices) and 
 	 * resorts the list after each vertex is colored.
+	 * Instead of resorting, the uncolored vertices are kept in a heap
+	 * whose keys are raised as their neighbors get colored, so the whole
+	 * run takes O((n + m) log n).
 	 */
 	public static class analyzeNumColored extends StatTestFunction {
 		public analyzeNumColored() {
@@ -270,28 +478,34 @@ public class Analysis {
 		}
 		
 		@Override
-		public StatTracker runTest(BasicGraph g) {
+		public StatTracker runTest(CompactGraph g, Coloring c) {
 			long startTime = System.nanoTime();
 			int numColors = 0;
-			LinkedList<Node> unvisited = new LinkedList<Node>();
-			for (Node n : g.allNodes) {
-				unvisited.add(n);
+			// keyed on the number of colored neighbors, ties go to the higher degree
+			VertexHeap unvisited = new VertexHeap(g.degree);
+			for (int v = 0; v < g.numNodes; v++) {
+				unvisited.add(v, 0);
 			}
 			
 			while (!unvisited.isEmpty()) {
-				Node current = unvisited.pop();
-				color(current, g.allNodes.size());
-				if (current.color > numColors) {					
+				int current = unvisited.poll();
+				color(g, c, current);
+				if (c.color[current] > numColors) {
 					numColors++;
 				}
-				//resorting nodes based on number of neighbors colored
-				Collections.sort(unvisited, BasicGraph.compareNumColored);
+				//only the uncolored neighbors gained a colored neighbor
+				for (int i = g.offsets[current]; i < g.offsets[current + 1]; i++) {
+					int n = g.neighbors[i];
+					if (unvisited.contains(n)) {
+						unvisited.increaseKey(n, unvisited.key(n) + 1);
+					}
+				}
 			}
 			
 			long endTime = System.nanoTime();
 			long duration = endTime - startTime;
-
-			StatTracker tracker = new StatTracker(duration, numColors, verify(g));
+			
+			StatTracker tracker = new StatTracker(duration, numColors, verify(g, c));
 			if (tracker.my_correctness == false) {
 				throw new Error(this.name + " colored incorrectly!\n");
 			}
@@ -300,11 +514,14 @@ public class Analysis {
 	}
 	
 	/*
-	 * Given a graph, it colors it based on the number of 
-	 * neighboring vertices that have previously been colored, from 
-	 * highest number colored to lowest.  It starts off by coloring 
-	 * the nodes of highest degree (number of vertices) and 
-	 * resorts the list after each vertex is colored.
+	 * Given a graph, it colors it based on the highest color among 
+	 * the neighboring vertices that have previously been colored, from 
+	 * highest color to lowest.  It starts off by coloring the nodes of 
+	 * highest degree (number of vertices) and resorts the list after 
+	 * each vertex is colored.
+	 * Instead of resorting, the uncolored vertices are kept in a heap
+	 * whose keys can only go up, and only the neighbors of the vertex 
+	 * just colored are updated.
 	 */
 	public static class analyzeHighColor extends StatTestFunction {
 		public analyzeHighColor() {
@@ -312,28 +529,34 @@ public class Analysis {
 		}
 		
 		@Override
-		public StatTracker runTest(BasicGraph g) {
+		public StatTracker runTest(CompactGraph g, Coloring c) {
 			long startTime = System.nanoTime();
 			int numColors = 0;
-			LinkedList<Node> unvisited = new LinkedList<Node>();
-			for (Node n : g.allNodes) {
-				unvisited.add(n);
+			// keyed on the highest color among neighbors, ties go to the higher degree
+			VertexHeap unvisited = new VertexHeap(g.degree);
+			for (int v = 0; v < g.numNodes; v++) {
+				unvisited.add(v, 0);
 			}
 			
 			while (!unvisited.isEmpty()) {
-				Node current = unvisited.pop();
-				color(current, g.allNodes.size());
-				if (current.color > numColors) {					
+				int current = unvisited.poll();
+				color(g, c, current);
+				if (c.color[current] > numColors) {
 					numColors++;
 				}
-				//resorting nodes based on highest color among neighbors
-				Collections.sort(unvisited, BasicGraph.compareHighColor);
+				//only the uncolored neighbors can see a new highest color
+				for (int i = g.offsets[current]; i < g.offsets[current + 1]; i++) {
+					int n = g.neighbors[i];
+					if (unvisited.contains(n)) {
+						unvisited.increaseKey(n, c.color[current]);
+					}
+				}
 			}
 			
 			long endTime = System.nanoTime();
 			long duration = endTime - startTime;
 			
-			StatTracker tracker = new StatTracker(duration, numColors, verify(g));
+			StatTracker tracker = new StatTracker(duration, numColors, verify(g, c));
 			if (tracker.my_correctness == false) {
 				throw new Error(this.name + " colored incorrectly!\n");
 			}
@@ -341,38 +564,599 @@ public class Analysis {
 		}
 	}
 	
-	/* 
-	 * given an uncolored Node, colors it with the smallest color
-	 * not found in its neighbors
+	/*
+	 * Colors first-fit in one of the orderings of Ordering, which is worked
+	 * out in O(n + m) as part of the timed run. Named after the ordering,
+	 * e.g. analyzeSmallestLast.
 	 */
-	static void color(Node current, int size) {
-		//seeking the smallest unfilled color among already colored neighbors
-		boolean[] lowest = new boolean[size];
-		for (Node n : current.connections) {
-			if (n.color != 0) {
-				lowest[n.color - 1] = true;
+	public static class analyzeOrdered extends StatTestFunction {
+		public final Ordering.Type ordering;
+		
+		public analyzeOrdered(Ordering.Type ordering) {
+			super(name(ordering));
+			this.ordering = ordering;
+		}
+		
+		// SMALLEST_LAST gives analyzeSmallestLast
+		private static String name(Ordering.Type ordering) {
+			StringBuilder name = new StringBuilder("analyze");
+			for (String word : ordering.name().split("_")) {
+				name.append(word.charAt(0)).append(word.substring(1).toLowerCase());
 			}
+			return name.toString();
 		}
 		
-		for (int i = 0; current.color == 0; i++) {
-			if (!lowest[i]) {
-				current.color = i + 1;
+		@Override
+		public StatTracker runTest(CompactGraph g, Coloring c) {
+			long startTime = System.nanoTime();
+			int numColors = 0;
+			
+			int[] order = ordering.order(g);
+			for (int j = 0; j < order.length; j++) {
+				color(g, c, order[j]);
+				if (c.color[order[j]] > numColors) {
+					numColors++;
+				}
 			}
+			
+			long endTime = System.nanoTime();
+			long duration = endTime - startTime;
+			
+			StatTracker tracker = new StatTracker(duration, numColors, verify(g, c));
+			if (tracker.my_correctness == false) {
+				throw new Error(this.name + " colored incorrectly!\n");
+			}
+			return tracker;
 		}
 	}
 	
 	/*
-	 * verifies if the colored graph has the property that 
-	 * none of its neighbors have the same color as the current node
+	 * Jones-Plassmann: every vertex gets a random priority, and in each
+	 * round every uncolored vertex whose priority beats all its uncolored
+	 * neighbors is colored first-fit. Those vertices are never adjacent, so
+	 * a round is colored in parallel on the pool.
+	 * Instead of checking every vertex again in each round, each vertex
+	 * counts its neighbors of higher priority; coloring a vertex counts 
+	 * down its lower neighbors, and the ones reaching 0 make up the next 
+	 * round. That keeps the total work at O(n + m).
+	 * The priorities come from seed, so a graph is colored the same way on
+	 * every run.
 	 */
-	static boolean verify(BasicGraph g) {
-		for(Node n: g.allNodes) {
-			for(Node x: n.connections) {
-				if (n.color == x.color)
-					return false;
+	public static class analyzeJonesPlassmann extends StatTestFunction {
+		// rounds smaller than this are colored without going through the pool
+		static final int GRAIN = 512;
+		
+		public final long seed;
+		
+		public analyzeJonesPlassmann() {
+			this(0);
+		}
+		
+		/**
+		 * @param seed - seeds the random priorities
+		 */
+		public analyzeJonesPlassmann(long seed) {
+			super("analyzeJonesPlassmann");
+			this.seed = seed;
+		}
+		
+		@Override
+		public StatTracker runTest(CompactGraph g, Coloring c) {
+			return runTest(g, c, defaultPool);
+		}
+		
+		@Override
+		public boolean isParallel() {
+			return true;
+		}
+		
+		@Override
+		public StatTracker runTest(CompactGraph g, Coloring c, ForkJoinPool pool) {
+			long startTime = System.nanoTime();
+			Random random = new Random(seed);
+			int[] priority = new int[g.numNodes];
+			for (int v = 0; v < g.numNodes; v++) {
+				priority[v] = random.nextInt();
 			}
+			Round round = new Round(g, c, priority, pool);
+			int size = round.run(null, g.numNodes);
+			while (size > 0) {
+				size = round.run(round.swap(), size);
+			}
+			
+			long endTime = System.nanoTime();
+			long duration = endTime - startTime;
+			
+			StatTracker tracker = new StatTracker(duration, c.numColors(), verify(g, c, pool));
+			if (tracker.my_correctness == false) {
+				throw new Error(this.name + " colored incorrectly!\n");
+			}
+			return tracker;
 		}
-		return true;
+		
+		/*
+		 * State shared by the rounds of one run. The vertices of the round
+		 * being colored are in frontier, and the ones ready for the round
+		 * after go to next.
+		 */
+		private static class Round {
+			final CompactGraph g;
+			final Coloring c;
+			final int[] priority;
+			final ForkJoinPool pool;
+			// number of uncolored neighbors that come before each vertex
+			final AtomicIntegerArray waiting;
+			int[] frontier;
+			int[] next;
+			final AtomicInteger nextSize = new AtomicInteger();
+			
+			Round(CompactGraph g, Coloring c, int[] priority, ForkJoinPool pool) {
+				this.g = g;
+				this.c = c;
+				this.priority = priority;
+				this.pool = pool;
+				waiting = new AtomicIntegerArray(g.numNodes);
+				frontier = new int[g.numNodes];
+				next = new int[g.numNodes];
+			}
+			
+			// makes next the frontier and returns it
+			int[] swap() {
+				int[] tmp = frontier;
+				frontier = next;
+				next = tmp;
+				return frontier;
+			}
+			
+			/*
+			 * Colors the first size vertices of vertices, or only counts the
+			 * waiting neighbors of 0..size-1 if vertices is null, and returns
+			 * how many vertices are ready for the next round
+			 */
+			int run(int[] vertices, int size) {
+				nextSize.set(0);
+				if (size <= GRAIN) {
+					work(vertices, 0, size);
+				} else {
+					pool.invoke(new Part(this, vertices, 0, size));
+				}
+				return nextSize.get();
+			}
+			
+			// true if a comes before b
+			boolean before(int a, int b) {
+				return priority[a] > priority[b] || (priority[a] == priority[b] && a < b);
+			}
+			
+			void work(int[] vertices, int from, int to) {
+				int[] ready = new int[64];
+				int count = 0;
+				for (int j = from; j < to; j++) {
+					int v = vertices == null ? j : vertices[j];
+					if (vertices == null) {
+						int higher = 0;
+						for (int i = g.offsets[v]; i < g.offsets[v + 1]; i++) {
+							if (before(g.neighbors[i], v))
+								higher++;
+						}
+						waiting.set(v, higher);
+						if (higher == 0) {
+							if (count == ready.length)
+								ready = Arrays.copyOf(ready, 2 * count);
+							ready[count++] = v;
+						}
+					} else {
+						color(g, c, v);
+						for (int i = g.offsets[v]; i < g.offsets[v + 1]; i++) {
+							int n = g.neighbors[i];
+							if (before(v, n) && waiting.decrementAndGet(n) == 0) {
+								if (count == ready.length)
+									ready = Arrays.copyOf(ready, 2 * count);
+								ready[count++] = n;
+							}
+						}
+					}
+				}
+				System.arraycopy(ready, 0, next, nextSize.getAndAdd(count), count);
+			}
+		}
+		
+		// one slice of a round, split in halves until it is at most GRAIN vertices
+		private static class Part extends RecursiveAction {
+			private static final long serialVersionUID = 1L;
+			private final Round round;
+			private final int[] vertices;
+			private final int from;
+			private final int to;
+			
+			Part(Round round, int[] vertices, int from, int to) {
+				this.round = round;
+				this.vertices = vertices;
+				this.from = from;
+				this.to = to;
+			}
+			
+			@Override
+			protected void compute() {
+				if (to - from <= GRAIN) {
+					round.work(vertices, from, to);
+				} else {
+					int mid = (from + to) >>> 1;
+					invokeAll(new Part(round, vertices, from, mid), new Part(round, vertices, mid, to));
+				}
+			}
+		}
+	}
+	
+	/*
+	 * Gebremedhin-Manne speculative coloring: the vertices, in decreasing 
+	 * degree order, are cut into one slice per thread, and every slice is 
+	 * colored first-fit at the same time without any locking. A neighbor in
+	 * another slice can pick the same color meanwhile, so a second parallel
+	 * pass looks for such conflicts, and of every conflicting edge the 
+	 * vertex of lower degree is colored again in the next round. The lowest
+	 * vertex of a round never has to be colored again, so the rounds end.
+	 * Every round and its conflicts are recorded in the tracker.
+	 */
+	public static class analyzeSpeculative extends StatTestFunction {
+		// number of slices, 0 to use one per thread of the pool
+		public final int parallelism;
+		
+		public analyzeSpeculative() {
+			this(0);
+		}
+		
+		public analyzeSpeculative(int parallelism) {
+			super("analyzeSpeculative");
+			this.parallelism = parallelism;
+		}
+		
+		@Override
+		public StatTracker runTest(CompactGraph g, Coloring c) {
+			return runTest(g, c, defaultPool);
+		}
+		
+		@Override
+		public boolean isParallel() {
+			return true;
+		}
+		
+		@Override
+		public StatTracker runTest(CompactGraph g, Coloring c, ForkJoinPool pool) {
+			long startTime = System.nanoTime();
+			int slices = parallelism > 0 ? parallelism : pool.getParallelism();
+			Speculation round = new Speculation(g, c);
+			List<Long> conflicts = new ArrayList<Long>();
+			for (int v = 0; v < g.numNodes; v++) {
+				round.pending[v] = v;
+			}
+			int size = g.numNodes;
+			while (size > 0) {
+				round.size = size;
+				round.nextSize.set(0);
+				pool.invoke(new Slice(round, false, 0, slices, slices));
+				pool.invoke(new Slice(round, true, 0, slices, slices));
+				size = round.nextSize.get();
+				conflicts.add((long)size);
+				// keep the vertices to recolor in degree order
+				Arrays.sort(round.next, 0, size);
+				int[] tmp = round.pending;
+				round.pending = round.next;
+				round.next = tmp;
+			}
+			
+			long endTime = System.nanoTime();
+			long duration = endTime - startTime;
+			
+			StatTracker tracker = new StatTracker(duration, c.numColors(), verify(g, c, pool));
+			for (long conflict : conflicts) {
+				tracker.addRound(conflict);
+			}
+			if (tracker.my_correctness == false) {
+				throw new Error(this.name + " colored incorrectly!\n");
+			}
+			return tracker;
+		}
+		
+		/*
+		 * State of one run: the first size vertices of pending are colored
+		 * in the current round, and the ones in conflict go to next
+		 */
+		private static class Speculation {
+			final CompactGraph g;
+			final Coloring c;
+			int[] pending;
+			int[] next;
+			int size;
+			final AtomicInteger nextSize = new AtomicInteger();
+			
+			Speculation(CompactGraph g, Coloring c) {
+				this.g = g;
+				this.c = c;
+				pending = new int[g.numNodes];
+				next = new int[g.numNodes];
+			}
+			
+			void color(int from, int to) {
+				for (int j = from; j < to; j++) {
+					Analysis.color(g, c, pending[j]);
+				}
+			}
+			
+			/*
+			 * Of two neighbors in the same round with the same color, the 
+			 * higher numbered one is colored again. Vertices outside the round 
+			 * kept their colors while it ran, so they can't be in conflict.
+			 */
+			void detect(int from, int to) {
+				int[] conflicts = new int[64];
+				int count = 0;
+				int[] color = c.color;
+				for (int j = from; j < to; j++) {
+					int v = pending[j];
+					for (int i = g.offsets[v]; i < g.offsets[v + 1]; i++) {
+						int n = g.neighbors[i];
+						if (n < v && color[n] == color[v]) {
+							if (count == conflicts.length)
+								conflicts = Arrays.copyOf(conflicts, 2 * count);
+							conflicts[count++] = v;
+							break;
+						}
+					}
+				}
+				System.arraycopy(conflicts, 0, next, nextSize.getAndAdd(count), count);
+			}
+		}
+		
+		// slices lo .. hi-1 of the round, out of count, split in halves down to one slice
+		private static class Slice extends RecursiveAction {
+			private static final long serialVersionUID = 1L;
+			private final Speculation round;
+			private final boolean detect;
+			private final int lo;
+			private final int hi;
+			private final int count;
+			
+			Slice(Speculation round, boolean detect, int lo, int hi, int count) {
+				this.round = round;
+				this.detect = detect;
+				this.lo = lo;
+				this.hi = hi;
+				this.count = count;
+			}
+			
+			@Override
+			protected void compute() {
+				if (hi - lo == 1) {
+					int from = (int)((long)round.size * lo / count);
+					int to = (int)((long)round.size * hi / count);
+					if (detect) {
+						round.detect(from, to);
+					} else {
+						round.color(from, to);
+					}
+				} else {
+					int mid = (lo + hi) >>> 1;
+					invokeAll(new Slice(round, detect, lo, mid, count), 
+							new Slice(round, detect, mid, hi, count));
+				}
+			}
+		}
+	}
+	
+	/*
+	 * Culberson's iterated greedy: starting from the coloring of another
+	 * function, the vertices are put in order class by class and colored 
+	 * first-fit again. Since the vertices of a class can't take each 
+	 * other's colors, every class fits into a color no higher than the one
+	 * it had, so the number of colors never goes up. The classes are put in
+	 * reverse order, largest first and in random order in turn, and the 
+	 * runs go on until the time or iteration budget is used up. The random
+	 * orders come from seed.
+	 * All buffers are made before the first iteration, so iterating does 
+	 * not allocate. Every time the number of colors drops, it is recorded 
+	 * in the tracker with the time since the start.
+	 */
+	public static class analyzeIteratedGreedy extends StatTestFunction {
+		public final StatTestFunction start;
+		public final long budget; // nanoseconds, including the starting coloring
+		public final int maxIterations;
+		public final long seed;
+		
+		/**
+		 * Runs 100 iterations with no time budget, so the colors it reports,
+		 * as one of the functions of a sweep, do not depend on the load of
+		 * the machine. Give a budget only for interactive use.
+		 */
+		public analyzeIteratedGreedy() {
+			this(new analyzeStrictDecreasingFunction(), Long.MAX_VALUE, 100);
+		}
+		
+		public analyzeIteratedGreedy(StatTestFunction start, long budget, int maxIterations) {
+			this(start, budget, maxIterations, 0);
+		}
+		
+		/**
+		 * @param start - makes the coloring to improve on
+		 * @param budget - nanoseconds to stop after, counted from the start
+		 * of the starting coloring
+		 * @param maxIterations - number of recolorings to stop after
+		 * @param seed - seeds the random class orders
+		 */
+		public analyzeIteratedGreedy(StatTestFunction start, long budget, int maxIterations,
+				long seed) {
+			super("analyzeIteratedGreedy");
+			this.start = start;
+			this.budget = budget;
+			this.maxIterations = maxIterations;
+			this.seed = seed;
+		}
+		
+		@Override
+		public StatTracker runTest(CompactGraph g, Coloring c) {
+			long startTime = System.nanoTime();
+			start.runTest(g, c);
+			int numColors = c.numColors();
+			Random random = new Random(seed);
+			
+			Coloring current = c;
+			Coloring scratch = new Coloring(g.numNodes);
+			int[] order = new int[g.numNodes];
+			int[] classSize = new int[numColors + 1];
+			int[] classOrder = new int[numColors];
+			int[] classStart = new int[numColors + 1];
+			// improvements, at most one per color given up
+			long[] times = new long[numColors + 1];
+			int[] colors = new int[numColors + 1];
+			times[0] = System.nanoTime() - startTime;
+			colors[0] = numColors;
+			int improvements = 1;
+			
+			for (int iteration = 0; iteration < maxIterations 
+					&& System.nanoTime() - startTime < budget && numColors > 1; iteration++) {
+				// the size of every class, color i + 1 in classSize[i]
+				Arrays.fill(classSize, 0, numColors, 0);
+				for (int v = 0; v < g.numNodes; v++) {
+					classSize[current.color[v] - 1]++;
+				}
+				for (int i = 0; i < numColors; i++) {
+					classOrder[i] = numColors - 1 - i;
+				}
+				if (iteration % 3 == 1) {
+					// largest first, insertion sort since there are few classes
+					for (int i = 1; i < numColors; i++) {
+						int cls = classOrder[i];
+						int j = i;
+						for (; j > 0 && classSize[classOrder[j - 1]] < classSize[cls]; j--) {
+							classOrder[j] = classOrder[j - 1];
+						}
+						classOrder[j] = cls;
+					}
+				} else if (iteration % 3 == 2) {
+					for (int i = numColors - 1; i > 0; i--) {
+						int j = random.nextInt(i + 1);
+						int tmp = classOrder[i];
+						classOrder[i] = classOrder[j];
+						classOrder[j] = tmp;
+					}
+				}
+				
+				// counting sort of the vertices by the place of their class
+				int pos = 0;
+				for (int i = 0; i < numColors; i++) {
+					classStart[classOrder[i]] = pos;
+					pos += classSize[classOrder[i]];
+				}
+				for (int v = 0; v < g.numNodes; v++) {
+					order[classStart[current.color[v] - 1]++] = v;
+				}
+				
+				scratch.reset();
+				int newColors = 0;
+				for (int j = 0; j < g.numNodes; j++) {
+					color(g, scratch, order[j]);
+					if (scratch.color[order[j]] > newColors) {
+						newColors = scratch.color[order[j]];
+					}
+				}
+				Coloring tmp = current;
+				current = scratch;
+				scratch = tmp;
+				if (newColors < numColors) {
+					numColors = newColors;
+					times[improvements] = System.nanoTime() - startTime;
+					colors[improvements++] = numColors;
+				}
+			}
+			if (current != c) {
+				System.arraycopy(current.color, 0, c.color, 0, g.numNodes);
+			}
+			
+			long endTime = System.nanoTime();
+			long duration = endTime - startTime;
+			
+			StatTracker tracker = new StatTracker(duration, numColors, verify(g, c));
+			for (int i = 0; i < improvements; i++) {
+				tracker.addProgress(times[i], colors[i]);
+			}
+			if (tracker.my_correctness == false) {
+				throw new Error(this.name + " colored incorrectly!\n");
+			}
+			return tracker;
+		}
+	}
+	
+	/* 
+	 * given an uncolored vertex, colors it with the smallest color
+	 * not found in its neighbors
+	 */
+	static void color(CompactGraph g, Coloring c, int current) {
+		firstFit.get().color(g, c, current);
+	}
+	
+	/*
+	 * Scratch space for color(), one per thread so coloring never allocates.
+	 * Color i + 1 is taken by a neighbor of the vertex being colored exactly
+	 * when used[i] == generation, so moving on to the next generation clears
+	 * the whole array without touching it. The first free color of a vertex
+	 * is at most its degree + 1, so only that many entries are looked at.
+	 */
+	static class FirstFit {
+		private int[] used = new int[16];
+		private int generation = 0;
+		
+		void color(CompactGraph g, Coloring c, int current) {
+			int degree = g.offsets[current + 1] - g.offsets[current];
+			if (used.length <= degree) {
+				used = new int[Math.max(degree + 1, 2 * used.length)];
+				generation = 0;
+			}
+			if (++generation == 0) {
+				// wrapped around, old stamps could match again
+				Arrays.fill(used, 0);
+				generation = 1;
+			}
+			int[] used = this.used;
+			int stamp = generation;
+			int[] color = c.color;
+			
+			//seeking the smallest unfilled color among already colored neighbors
+			for (int i = g.offsets[current]; i < g.offsets[current + 1]; i++) {
+				// colors above degree can't be the first free one, and 0 wraps to -1
+				int taken = color[g.neighbors[i]] - 1;
+				if (taken >= 0 && taken < degree) {
+					used[taken] = stamp;
+				}
+			}
+			
+			int i = 0;
+			while (used[i] == stamp) {
+				i++;
+			}
+			color[current] = i + 1;
+		}
+	}
+	
+	private static final ThreadLocal<FirstFit> firstFit = new ThreadLocal<FirstFit>() {
+		@Override
+		protected FirstFit initialValue() {
+			return new FirstFit();
+		}
+	};
+	
+	/*
+	 * verifies if the colored graph has the property that 
+	 * none of its neighbors have the same color as the current node,
+	 * and that every node is colored; large graphs are checked in 
+	 * parallel, see Verifier
+	 */
+	static boolean verify(CompactGraph g, Coloring c) {
+		return verify(g, c, defaultPool);
+	}
+	
+	// the same as verify above, checking large graphs on pool
+	static boolean verify(CompactGraph g, Coloring c, ForkJoinPool pool) {
+		return Verifier.isProper(g, c, pool);
 	}
 	
 }
@@ -0,0 +1,361 @@
+package src;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Creates the same kind of k-partite graphs as the Simplified generators
+ * of GraphCreator, straight into a CompactGraph, with the edges between
+ * every pair of sets sampled as a separate block in parallel. For k = 20
+ * that is 190 blocks.
+ *
+ * Each block has its own Random, seeded from the seed and the number of
+ * the block, and samples its pairs with geometric skips like
+ * GraphCreator.EdgeSampling.GEOMETRIC_SKIP into its own int buffer. The
+ * graph is then the same for a seed whatever the number of threads.
+ *
+ * Blocks can not share the maxDegree of a node without talking to each
+ * other, so every node gets a budget in each of its k - 1 blocks instead:
+ * what is left of maxDegree after the backbone, split in proportion to the
+ * sizes of the other sets, with the rounding remainder going to the first
+ * sets. The budgets of a node add up to that remainder, so no node ends
+ * above maxDegree, but when the cap is reached the edges of a node are
+ * spread over the other sets more evenly than with the sequential
+ * generators, where the first sets get them first. The budgets are worked
+ * out once, after the backbone, and kept in an array of n k ints.
+ *
+ * Once every block is sampled the vertices are numbered by decreasing
+ * degree and every block knows where its part of each neighbor list
+ * starts, so the blocks also fill the CSR arrays in parallel.
+ */
+public class BlockGenerator {
+
+	private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+
+	private final int numNodes;
+	private final int k;
+	private final double density;
+	private final int maxDegree;
+	private final int[] setSizes;
+	private final long seed;
+	private final int[][] nodes; // id of every node, by set and column
+	private final int[] setOf;
+	private final int[] backbone; // the earlier node each node was connected to, or -1
+	private final int[] backboneDegree;
+	private int[] budgets; // budgets[v * k + s] is the budget of v in the block with set s
+	private final Block[] blocks;
+	// filled in once the blocks are sampled
+	private int[] rank; // new number of every id
+	private int[] neighbors;
+
+	private BlockGenerator(int numNodes, int k, double density, int maxDegree,
+			int[] setSizes, long seed) {
+		this.numNodes = numNodes;
+		this.k = k;
+		this.density = density;
+		this.maxDegree = maxDegree;
+		this.setSizes = setSizes;
+		this.seed = seed;
+		nodes = new int[k][];
+		setOf = new int[numNodes];
+		backbone = new int[numNodes];
+		backboneDegree = new int[numNodes];
+		int maxSetSize = 0;
+		for (int row = 0; row < k; row++) {
+			nodes[row] = new int[setSizes[row]];
+			maxSetSize = Math.max(maxSetSize, setSizes[row]);
+		}
+		// ids go column by column, as the generators create the nodes
+		int id = 0;
+		for (int col = 0; col < maxSetSize; col++) {
+			for (int row = 0; row < k; row++) {
+				if (col < nodes[row].length) {
+					nodes[row][col] = id;
+					setOf[id] = row;
+					backbone[id] = -1;
+					id++;
+				}
+			}
+		}
+		blocks = new Block[k * (k - 1) / 2];
+		int b = 0;
+		for (int first = 0; first < k - 1; first++) {
+			for (int second = first + 1; second < k; second++) {
+				blocks[b] = new Block(this, b, first, second);
+				b++;
+			}
+		}
+	}
+
+	/**
+	 * Creates a graph on pool. See GraphCreator.createCompactGraphParallel
+	 * and createCompactConnectedGraphParallel for the parameters.
+	 *
+	 * @param connected - first connect every node to a random earlier node
+	 * of another set, as createRandomConnectedGraphSimplified does
+	 * @param pool - samples the blocks; it is not shut down
+	 * @return
+	 * @throws IllegalArgumentException for the same parameters the
+	 * generators throw it for, or if setSizes do not add up to numNodes
+	 */
+	public static CompactGraph create(int numNodes, int k, double density, int maxDegree,
+			int[] setSizes, long seed, boolean connected, ForkJoinPool pool) {
+		if (numNodes < 0 || k < 2 || density < 0 || density > 1 ||
+				maxDegree < 1 || setSizes.length != k) {
+			throw new IllegalArgumentException();
+		}
+		long total = 0;
+		for (int size : setSizes) {
+			if (size < 1) {
+				throw new IllegalArgumentException();
+			}
+			total += size;
+		}
+		if (total != numNodes) {
+			throw new IllegalArgumentException("setSizes add up to " + total + ", not " + numNodes);
+		}
+		BlockGenerator gen = new BlockGenerator(numNodes, k, density, maxDegree,
+				setSizes.clone(), seed);
+		if (connected) {
+			gen.connect();
+		}
+		gen.share();
+		if (density > 0) {
+			pool.invoke(new Part(gen, Part.SAMPLE, 0, gen.blocks.length));
+		}
+		int[] offsets = gen.place();
+		pool.invoke(new Part(gen, Part.FILL, 0, gen.blocks.length));
+
+		int[] ids = new int[numNodes];
+		int[] setNumber = new int[numNodes];
+		for (int v = 0; v < numNodes; v++) {
+			ids[gen.rank[v]] = v;
+			setNumber[gen.rank[v]] = gen.setOf[v];
+		}
+		return new CompactGraph(offsets, gen.neighbors, ids, setNumber);
+	}
+
+	// the backbone of createRandomConnectedGraphSimplified, from a Random of its own
+	private void connect() {
+		int[] tree = GraphCreator.randomBackbone(setOf, k, maxDegree, new Random(GraphCreator.mixSeed(seed)));
+		for (int v = 1; v < numNodes; v++) {
+			if (tree[v] >= 0) {
+				backbone[v] = tree[v];
+				backboneDegree[v]++;
+				backboneDegree[tree[v]]++;
+			}
+		}
+	}
+
+	/*
+	 * Fills budgets: every node's share of what the backbone left of
+	 * maxDegree in each other set, in proportion to the size of the set,
+	 * with the rounding remainder going to the first sets. O(n k)
+	 */
+	private void share() {
+		budgets = new int[numNodes * k];
+		for (int v = 0; v < numNodes; v++) {
+			int row = setOf[v];
+			long left = maxDegree - backboneDegree[v];
+			long others = numNodes - setSizes[row];
+			int base = v * k;
+			int extra = (int)left;
+			for (int s = 0; s < k; s++) {
+				if (s != row) {
+					budgets[base + s] = (int)(left * setSizes[s] / others);
+					extra -= budgets[base + s];
+				}
+			}
+			// fewer than k - 1 are left over, so this stops before s reaches k
+			for (int s = 0; extra > 0; s++) {
+				if (s != row) {
+					budgets[base + s]++;
+					extra--;
+				}
+			}
+		}
+	}
+
+	// the budget of node v in the block with set other
+	private int budget(int v, int other) {
+		return budgets[v * k + other];
+	}
+
+	/*
+	 * Numbers the vertices by decreasing degree, ties in id order, puts the
+	 * backbone edges at the front of the lists and tells every block where
+	 * its part of each list starts. Returns the offsets.
+	 */
+	private int[] place() {
+		int[] degree = backboneDegree.clone();
+		for (Block block : blocks) {
+			for (int i = 0; i < block.degree.length; i++) {
+				degree[block.node(i)] += block.degree[i];
+			}
+		}
+		int maxDeg = 0;
+		for (int v = 0; v < numNodes; v++) {
+			maxDeg = Math.max(maxDeg, degree[v]);
+		}
+		int[] start = new int[maxDeg + 2];
+		for (int v = 0; v < numNodes; v++) {
+			start[maxDeg - degree[v] + 1]++;
+		}
+		for (int d = 0; d <= maxDeg; d++) {
+			start[d + 1] += start[d];
+		}
+		rank = new int[numNodes];
+		int[] order = new int[numNodes];
+		for (int v = 0; v < numNodes; v++) {
+			int r = start[maxDeg - degree[v]]++;
+			rank[v] = r;
+			order[r] = v;
+		}
+		int[] offsets = new int[numNodes + 1];
+		for (int r = 0; r < numNodes; r++) {
+			offsets[r + 1] = offsets[r] + degree[order[r]];
+		}
+
+		neighbors = new int[offsets[numNodes]];
+		int[] fill = Arrays.copyOf(offsets, numNodes); // by new number
+		for (int v = 1; v < numNodes; v++) {
+			if (backbone[v] >= 0) {
+				int a = rank[v];
+				int b = rank[backbone[v]];
+				neighbors[fill[a]++] = b;
+				neighbors[fill[b]++] = a;
+			}
+		}
+		for (Block block : blocks) {
+			for (int i = 0; i < block.degree.length; i++) {
+				int r = rank[block.node(i)];
+				block.start[i] = fill[r];
+				fill[r] += block.degree[i];
+			}
+		}
+		return offsets;
+	}
+
+	/*
+	 * The pairs between sets first and second. Its nodes are numbered i,
+	 * the nodes of first followed by those of second; degree[i] is the
+	 * number of edges node i has in the block and start[i] where the next
+	 * of them goes in its neighbor list.
+	 */
+	private static class Block {
+		final BlockGenerator gen;
+		final int number;
+		final int first;
+		final int second;
+		final int[] degree;
+		final int[] start;
+		int[] ends = new int[0]; // two block node numbers per edge
+		int size;
+
+		Block(BlockGenerator gen, int number, int first, int second) {
+			this.gen = gen;
+			this.number = number;
+			this.first = first;
+			this.second = second;
+			degree = new int[gen.setSizes[first] + gen.setSizes[second]];
+			start = new int[degree.length];
+		}
+
+		int node(int i) {
+			int firstSize = gen.nodes[first].length;
+			return i < firstSize ? gen.nodes[first][i] : gen.nodes[second][i - firstSize];
+		}
+
+		void sample() {
+			Random random = new Random(GraphCreator.mixSeed(gen.seed + (number + 1) * GOLDEN_GAMMA));
+			double logQ = Math.log(1.0 - gen.density);
+			int[] from = gen.nodes[first];
+			int[] to = gen.nodes[second];
+			// open[0 .. openCount) are the nodes of second with budget left
+			int[] left = new int[to.length];
+			int[] open = new int[to.length];
+			int openCount = 0;
+			for (int j = 0; j < to.length; j++) {
+				left[j] = gen.budget(to[j], first);
+				if (left[j] > 0)
+					open[openCount++] = j;
+			}
+			ends = new int[64];
+			for (int i = 0; i < from.length && openCount > 0; i++) {
+				int a = from[i];
+				int budget = gen.budget(a, second);
+				int col = -1;
+				while (budget > 0) {
+					col += 1 + GraphCreator.geometricSkip(logQ, random);
+					if (col >= openCount)
+						break;
+					int j = open[col];
+					int b = to[j];
+					if (gen.backbone[a] == b || gen.backbone[b] == a)
+						continue;
+					add(i, from.length + j);
+					budget--;
+					if (--left[j] == 0) {
+						// the node swapped into this slot has not been looked at yet
+						open[col] = open[--openCount];
+						col--;
+					}
+				}
+			}
+		}
+
+		private void add(int a, int b) {
+			if (size + 2 > ends.length)
+				ends = Arrays.copyOf(ends, 2 * ends.length);
+			ends[size++] = a;
+			ends[size++] = b;
+			degree[a]++;
+			degree[b]++;
+		}
+
+		void fill() {
+			int[] rank = gen.rank;
+			int[] neighbors = gen.neighbors;
+			for (int e = 0; e < size; e += 2) {
+				int a = ends[e];
+				int b = ends[e + 1];
+				neighbors[start[a]++] = rank[node(b)];
+				neighbors[start[b]++] = rank[node(a)];
+			}
+			ends = null; // done with it
+		}
+	}
+
+	// blocks from .. to-1, split in halves until one is left
+	private static class Part extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+		static final int SAMPLE = 0, FILL = 1;
+		private final BlockGenerator gen;
+		private final int phase;
+		private final int from;
+		private final int to;
+
+		Part(BlockGenerator gen, int phase, int from, int to) {
+			this.gen = gen;
+			this.phase = phase;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected void compute() {
+			if (to - from == 1) {
+				if (phase == SAMPLE) {
+					gen.blocks[from].sample();
+				} else {
+					gen.blocks[from].fill();
+				}
+			} else if (to > from) {
+				int mid = (from + to) >>> 1;
+				invokeAll(new Part(gen, phase, from, mid), new Part(gen, phase, mid, to));
+			}
+		}
+	}
+}
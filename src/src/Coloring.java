@@ -0,0 +1,39 @@
+package src;
+
+import java.util.Arrays;
+
+/**
+ * A coloring of the vertices of a CompactGraph, kept apart from the graph
+ * so the graph itself is never written to. Colors start from 1; 0 means the
+ * vertex is not yet colored. One Coloring can be reused for several runs by
+ * calling reset() in between.
+ */
+public class Coloring {
+
+	public final int[] color;
+
+	public Coloring(int numNodes) {
+		color = new int[numNodes];
+	}
+
+	// setting all colors back to 0 after a coloring has been done
+	public void reset() {
+		Arrays.fill(color, 0);
+	}
+
+	/**
+	 * Returns the highest color used, which is the number of colors used
+	 * for the colorings made by Analysis
+	 *
+	 * @return
+	 */
+	public int numColors() {
+		int max = 0;
+		for (int c : color) {
+			if (c > max) {
+				max = c;
+			}
+		}
+		return max;
+	}
+}
@@ -0,0 +1,136 @@
+package src;
+
+import java.util.Arrays;
+
+import src.BasicGraph.Node;
+
+/**
+ * Immutable compressed sparse row (CSR) version of a BasicGraph.
+ *
+ * Vertices are numbered 0..numNodes-1 in the order of the source graph's
+ * allNodes list, so a graph built from one of the GraphCreator factories
+ * keeps its decreasing-degree order and the heuristics can simply walk
+ * vertices from 0 upwards. The neighbours of vertex v are stored in
+ * neighbors[offsets[v]] .. neighbors[offsets[v + 1] - 1].
+ *
+ * The graph never changes once built, so it can be shared between threads.
+ * Colorings of it are kept in separate Coloring objects.
+ */
+public class CompactGraph {
+
+	public final int numNodes;
+	public final int[] offsets;
+	public final int[] neighbors;
+	public final int[] ids; // id of the BasicGraph node each vertex came from
+	public final int[] degree;
+	public final int[] setNumber; // -1 if the vertex was not assigned a set
+
+	/**
+	 * Builds the CSR arrays from the adjacency lists of graph.
+	 *
+	 * @param graph - the graph to copy; it is not modified
+	 * @throws IllegalArgumentException if two nodes in graph share an id
+	 */
+	public CompactGraph(BasicGraph graph) {
+		numNodes = graph.allNodes.size();
+		offsets = new int[numNodes + 1];
+		ids = new int[numNodes];
+		degree = new int[numNodes];
+		setNumber = new int[numNodes];
+
+		// first pass: number the vertices and find where each list starts
+		int maxId = -1;
+		int v = 0;
+		for (Node n : graph.allNodes) {
+			ids[v] = n.id;
+			degree[v] = n.connections.size();
+			setNumber[v] = n.setNumber;
+			offsets[v + 1] = offsets[v] + degree[v];
+			if (n.id > maxId)
+				maxId = n.id;
+			v++;
+		}
+
+		// map node ids back to vertex numbers
+		int[] vertexOf = new int[maxId + 1];
+		Arrays.fill(vertexOf, -1);
+		for (v = 0; v < numNodes; v++) {
+			if (ids[v] < 0 || vertexOf[ids[v]] != -1)
+				throw new IllegalArgumentException("Duplicate node id " + ids[v]);
+			vertexOf[ids[v]] = v;
+		}
+
+		// second pass: fill in the neighbours
+		neighbors = new int[offsets[numNodes]];
+		int pos = 0;
+		for (Node n : graph.allNodes) {
+			for (Node n2 : n.connections) {
+				neighbors[pos++] = vertexOf[n2.id];
+			}
+		}
+	}
+
+	/**
+	 * Wraps already built CSR arrays, which are used as they are and must
+	 * not be changed afterwards. The degrees are worked out from offsets.
+	 *
+	 * @param offsets - numNodes + 1 entries, neighbors of v are at 
+	 * offsets[v] .. offsets[v + 1] - 1
+	 * @param neighbors - the neighbor lists of all vertices, one after another
+	 * @param ids - an id for every vertex
+	 * @param setNumber - the set of every vertex, or -1
+	 * @throws IllegalArgumentException if the arrays don't fit together
+	 */
+	public CompactGraph(int[] offsets, int[] neighbors, int[] ids, int[] setNumber) {
+		numNodes = offsets.length - 1;
+		if (numNodes < 0 || ids.length != numNodes || setNumber.length != numNodes
+				|| offsets[0] != 0 || offsets[numNodes] != neighbors.length)
+			throw new IllegalArgumentException("CSR arrays don't match");
+		this.offsets = offsets;
+		this.neighbors = neighbors;
+		this.ids = ids;
+		this.setNumber = setNumber;
+		degree = new int[numNodes];
+		for (int v = 0; v < numNodes; v++) {
+			degree[v] = offsets[v + 1] - offsets[v];
+		}
+	}
+
+	/**
+	 * Returns the max degree of any vertex in the graph
+	 *
+	 * @return
+	 */
+	public int maxDegree() {
+		int max = 0;
+		for (int v = 0; v < numNodes; v++) {
+			if (degree[v] > max) {
+				max = degree[v];
+			}
+		}
+		return max;
+	}
+
+	/**
+	 * Returns the number of edges in the graph
+	 *
+	 * @return
+	 */
+	public int numEdges() {
+		return neighbors.length / 2;
+	}
+
+	public String toString() {
+		StringBuilder ret = new StringBuilder("Graph: ");
+		for (int v = 0; v < numNodes; v++) {
+			ret.append("\n\t[id:").append(ids[v]).append(", to:");
+			for (int i = offsets[v]; i < offsets[v + 1]; i++) {
+				if (i > offsets[v])
+					ret.append(", ");
+				ret.append(ids[neighbors[i]]);
+			}
+			ret.append("]");
+		}
+		return ret.toString();
+	}
+}
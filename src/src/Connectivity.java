@@ -0,0 +1,315 @@
+package src;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * The connected components of a CompactGraph, found by breadth-first
+ * search with the visited vertices in a bitset and the frontier in an int
+ * array.
+ *
+ * On graphs of more than GRAIN vertices the component of vertex 0, which
+ * in the generated graphs is all or most of the graph, is searched in
+ * parallel on a ForkJoinPool, direction-optimizing (Beamer, Asanovic and
+ * Patterson, "Direction-optimizing breadth-first search", 2012). Top-down
+ * steps split the frontier into parts which claim unvisited neighbors with
+ * a compare-and-set on the bitset. Once the frontier has more than
+ * 1/ALPHA of the edges left to explore, bottom-up steps instead have every
+ * unvisited vertex look for a neighbor in the frontier, kept as a bitset,
+ * and stop at the first; each part owns whole words of the bitset, so no
+ * compare-and-set is needed. When the frontier shrinks below 1/BETA of the
+ * vertices the search goes top-down again. The other components are small
+ * and searched one after the other by the calling thread.
+ */
+public class Connectivity {
+
+	public static final int GRAIN = 4096;
+	private static final int ALPHA = 14;
+	private static final int BETA = 24;
+
+	public final int count; // number of components
+	public final int[] component; // component of every vertex, numbered in order of their first vertex
+	public final int largest; // vertices in the largest component
+	public final long duration; // nanoseconds taken by components
+
+	private Connectivity(int count, int[] component, int largest, long duration) {
+		this.count = count;
+		this.component = component;
+		this.largest = largest;
+		this.duration = duration;
+	}
+
+	/**
+	 * Returns true if every vertex can be reached from every other, which
+	 * holds for a graph without vertices
+	 *
+	 * @return
+	 */
+	public boolean isConnected() {
+		return count <= 1;
+	}
+
+	/**
+	 * Finds the connected components of g.
+	 *
+	 * @param g
+	 * @param pool - searches large graphs; it is not shut down
+	 * @return
+	 */
+	public static Connectivity components(CompactGraph g, ForkJoinPool pool) {
+		long startTime = System.nanoTime();
+		int n = g.numNodes;
+		int[] component = new int[n];
+		long[] visited = new long[(n + 63) >>> 6];
+		int count = 0;
+		int largest = 0;
+		if (n > GRAIN) {
+			Parallel search = new Parallel(g, component, pool);
+			largest = search.run(0);
+			for (int w = 0; w < visited.length; w++) {
+				visited[w] = search.visited.get(w);
+			}
+			count = 1;
+		}
+
+		// the rest one by one
+		int[] queue = new int[n];
+		for (int s = 0; s < n; s++) {
+			if ((visited[s >>> 6] & (1L << s)) != 0)
+				continue;
+			visited[s >>> 6] |= 1L << s;
+			component[s] = count;
+			int head = 0;
+			int tail = 0;
+			queue[tail++] = s;
+			while (head < tail) {
+				int u = queue[head++];
+				for (int i = g.offsets[u]; i < g.offsets[u + 1]; i++) {
+					int w = g.neighbors[i];
+					if ((visited[w >>> 6] & (1L << w)) == 0) {
+						visited[w >>> 6] |= 1L << w;
+						component[w] = count;
+						queue[tail++] = w;
+					}
+				}
+			}
+			largest = Math.max(largest, tail);
+			count++;
+		}
+		return new Connectivity(count, component, largest, System.nanoTime() - startTime);
+	}
+
+	/*
+	 * The parallel search of the component of one vertex, labelled 0
+	 */
+	private static class Parallel {
+		static final int TOP_DOWN = 0, BOTTOM_UP = 1;
+		final CompactGraph g;
+		final int[] component;
+		final ForkJoinPool pool;
+		final int words;
+		final AtomicLongArray visited;
+		// the frontier as a list for top-down steps and as a bitset for bottom-up ones
+		int[] frontier;
+		int frontierSize;
+		int[] next;
+		long[] frontierBits;
+		long[] nextBits;
+		// what the parts of a step found
+		final AtomicInteger found = new AtomicInteger();
+		final AtomicLong edges = new AtomicLong(); // sum of the degrees of the vertices found
+
+		Parallel(CompactGraph g, int[] component, ForkJoinPool pool) {
+			this.g = g;
+			this.component = component;
+			this.pool = pool;
+			words = (g.numNodes + 63) >>> 6;
+			visited = new AtomicLongArray(words);
+		}
+
+		// returns the number of vertices reached from source
+		int run(int source) {
+			int n = g.numNodes;
+			frontier = new int[n];
+			next = new int[n];
+			claim(source);
+			component[source] = 0;
+			frontier[0] = source;
+			frontierSize = 1;
+			long frontierEdges = g.degree[source];
+			long unexplored = g.offsets[n] - frontierEdges; // degrees of the unvisited vertices
+			int reached = 1;
+			boolean bottomUp = false;
+			while (frontierSize > 0) {
+				if (!bottomUp && frontierEdges > unexplored / ALPHA) {
+					bottomUp = true;
+					toBits();
+				} else if (bottomUp && frontierSize < n / BETA) {
+					bottomUp = false;
+					toList();
+				}
+				found.set(0);
+				edges.set(0);
+				if (bottomUp) {
+					nextBits = new long[words];
+					step(BOTTOM_UP, 0, words, GRAIN >>> 6);
+					frontierBits = nextBits;
+				} else {
+					step(TOP_DOWN, 0, frontierSize, GRAIN);
+					int[] swap = frontier;
+					frontier = next;
+					next = swap;
+				}
+				frontierSize = found.get();
+				frontierEdges = edges.get();
+				unexplored -= frontierEdges;
+				reached += frontierSize;
+			}
+			return reached;
+		}
+
+		// runs a step inline if it is small, as parts on the pool if not
+		private void step(int mode, int from, int to, int grain) {
+			if (to - from <= grain) {
+				range(mode, from, to);
+			} else {
+				pool.invoke(new Part(this, mode, from, to, grain));
+			}
+		}
+
+		void range(int mode, int from, int to) {
+			if (mode == TOP_DOWN) {
+				topDown(from, to);
+			} else {
+				bottomUp(from, to);
+			}
+		}
+
+		// the unvisited neighbors of frontier[from .. to-1]
+		private void topDown(int from, int to) {
+			int[] local = new int[64];
+			int size = 0;
+			long degrees = 0;
+			for (int i = from; i < to; i++) {
+				int u = frontier[i];
+				for (int j = g.offsets[u]; j < g.offsets[u + 1]; j++) {
+					int w = g.neighbors[j];
+					if (claim(w)) {
+						component[w] = 0;
+						if (size == local.length)
+							local = Arrays.copyOf(local, 2 * size);
+						local[size++] = w;
+						degrees += g.degree[w];
+					}
+				}
+			}
+			if (size > 0) {
+				int at = found.getAndAdd(size);
+				System.arraycopy(local, 0, next, at, size);
+				edges.addAndGet(degrees);
+			}
+		}
+
+		// the unvisited vertices of words from .. to-1 with a neighbor in the frontier
+		private void bottomUp(int from, int to) {
+			int size = 0;
+			long degrees = 0;
+			for (int word = from; word < to; word++) {
+				long seen = visited.get(word);
+				long unseen = ~seen;
+				if (word == words - 1 && (g.numNodes & 63) != 0)
+					unseen &= (1L << g.numNodes) - 1; // no vertices past the end
+				long newBits = 0;
+				while (unseen != 0) {
+					int v = (word << 6) + Long.numberOfTrailingZeros(unseen);
+					unseen &= unseen - 1;
+					for (int j = g.offsets[v]; j < g.offsets[v + 1]; j++) {
+						int w = g.neighbors[j];
+						if ((frontierBits[w >>> 6] & (1L << w)) != 0) {
+							newBits |= 1L << v;
+							component[v] = 0;
+							size++;
+							degrees += g.degree[v];
+							break;
+						}
+					}
+				}
+				if (newBits != 0) {
+					// no other part touches this word
+					visited.set(word, seen | newBits);
+					nextBits[word] = newBits;
+				}
+			}
+			if (size > 0) {
+				found.addAndGet(size);
+				edges.addAndGet(degrees);
+			}
+		}
+
+		// marks v visited, returning false if it already was
+		private boolean claim(int v) {
+			int word = v >>> 6;
+			long bit = 1L << v;
+			while (true) {
+				long old = visited.get(word);
+				if ((old & bit) != 0)
+					return false;
+				if (visited.compareAndSet(word, old, old | bit))
+					return true;
+			}
+		}
+
+		private void toBits() {
+			frontierBits = new long[words];
+			for (int i = 0; i < frontierSize; i++) {
+				int v = frontier[i];
+				frontierBits[v >>> 6] |= 1L << v;
+			}
+		}
+
+		private void toList() {
+			int size = 0;
+			for (int word = 0; word < words; word++) {
+				long bits = frontierBits[word];
+				while (bits != 0) {
+					frontier[size++] = (word << 6) + Long.numberOfTrailingZeros(bits);
+					bits &= bits - 1;
+				}
+			}
+			frontierSize = size;
+		}
+	}
+
+	// frontier entries or bitset words from .. to-1, split in halves until at most grain are left
+	private static class Part extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+		private final Parallel search;
+		private final int mode;
+		private final int from;
+		private final int to;
+		private final int grain;
+
+		Part(Parallel search, int mode, int from, int to, int grain) {
+			this.search = search;
+			this.mode = mode;
+			this.from = from;
+			this.to = to;
+			this.grain = grain;
+		}
+
+		@Override
+		protected void compute() {
+			if (to - from <= grain) {
+				search.range(mode, from, to);
+			} else {
+				int mid = (from + to) >>> 1;
+				invokeAll(new Part(search, mode, from, mid, grain),
+						new Part(search, mode, mid, to, grain));
+			}
+		}
+	}
+}
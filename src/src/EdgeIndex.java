@@ -0,0 +1,121 @@
+package src;
+
+import java.util.Arrays;
+
+/**
+ * Set of undirected edges, used by BasicGraph to answer existsEdge and
+ * addEdge in constant time instead of searching an adjacency list.
+ *
+ * Each edge is packed into a single long, with the smaller node id in the
+ * upper 32 bits and the larger one in the lower 32 bits, and stored in an
+ * open-addressing table with linear probing. The table doubles whenever it
+ * becomes half full. Edges can not be removed.
+ */
+public class EdgeIndex {
+
+	private static final long EMPTY = -1L; // node ids are never negative
+
+	private long[] table;
+	private int mask;
+	private int shift;
+	private int size;
+
+	public EdgeIndex() {
+		this(16);
+	}
+
+	/**
+	 * @param expectedEdges - number of edges the index should hold before
+	 * it has to grow
+	 */
+	public EdgeIndex(int expectedEdges) {
+		int capacity = 16;
+		while (capacity < 2 * expectedEdges) {
+			capacity <<= 1;
+		}
+		table = new long[capacity];
+		Arrays.fill(table, EMPTY);
+		mask = capacity - 1;
+		shift = Long.numberOfLeadingZeros(mask);
+	}
+
+	/**
+	 * Returns true if the edge between ids a and b is in the index,
+	 * false otherwise
+	 *
+	 * @param a
+	 * @param b
+	 * @return
+	 */
+	public boolean contains(int a, int b) {
+		long key = key(a, b);
+		for (int i = slot(key); ; i = (i + 1) & mask) {
+			if (table[i] == key)
+				return true;
+			if (table[i] == EMPTY)
+				return false;
+		}
+	}
+
+	/**
+	 * Returns true if the edge between ids a and b was not in the index
+	 * before, false otherwise
+	 *
+	 * @param a
+	 * @param b
+	 * @return
+	 */
+	public boolean add(int a, int b) {
+		long key = key(a, b);
+		int i = slot(key);
+		for (; table[i] != EMPTY; i = (i + 1) & mask) {
+			if (table[i] == key)
+				return false;
+		}
+		table[i] = key;
+		if (++size * 2 > table.length) {
+			grow();
+		}
+		return true;
+	}
+
+	/**
+	 * Returns the number of edges in the index
+	 *
+	 * @return
+	 */
+	public int size() {
+		return size;
+	}
+
+	private void grow() {
+		long[] old = table;
+		table = new long[old.length * 2];
+		Arrays.fill(table, EMPTY);
+		mask = table.length - 1;
+		shift = Long.numberOfLeadingZeros(mask);
+		for (long key : old) {
+			if (key != EMPTY) {
+				int i = slot(key);
+				while (table[i] != EMPTY) {
+					i = (i + 1) & mask;
+				}
+				table[i] = key;
+			}
+		}
+	}
+
+	private static long key(int a, int b) {
+		if (a > b) {
+			int tmp = a;
+			a = b;
+			b = tmp;
+		}
+		return ((long)a << 32) | (b & 0xffffffffL);
+	}
+
+	// Fibonacci hashing spreads the packed ids over the whole table
+	private int slot(long key) {
+		return (int)((key * 0x9E3779B97F4A7C15L) >>> shift);
+	}
+}
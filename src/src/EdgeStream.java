@@ -0,0 +1,312 @@
+package src;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * The edges of a graph from one of the k-partite generators of
+ * GraphCreator, produced one at a time instead of building the graph out
+ * of Node objects. Vertices are the ids the generator would give the
+ * nodes, and edges come out in the order it would add them, with the same
+ * random numbers for the same seed. Only a few ints per vertex are kept
+ * while iterating, never anything per edge.
+ *
+ * The random numbers come from a Random made from seed, so every
+ * iterator() goes through exactly the same edges. toCompactGraph uses
+ * that to build the CSR arrays in two passes, counting degrees and then
+ * filling in the neighbours, so the graph never exists in any other form
+ * and its peak memory is about the size of the finished CompactGraph.
+ */
+public class EdgeStream {
+
+	public final int numNodes;
+	public final int k;
+	public final double density;
+	public final int maxDegree;
+	public final long seed;
+	// true for createRandomConnectedGraphSimplified, false for createRandomGraphSimplified
+	public final boolean connected;
+	public final GraphCreator.EdgeSampling sampling;
+	private final int[] setSizes;
+
+	/**
+	 * See GraphCreator.createConnectedEdgeStream and createEdgeStream
+	 *
+	 * @throws IllegalArgumentException for the same parameters the
+	 * generators throw it for, or if setSizes do not add up to numNodes
+	 */
+	EdgeStream(int numNodes, int k, double density, int maxDegree, int[] setSizes,
+			long seed, boolean connected, GraphCreator.EdgeSampling sampling) {
+		if (numNodes < 0 || k < 2 || density < 0 || density > 1 ||
+				maxDegree < 1 || setSizes.length != k) {
+			throw new IllegalArgumentException();
+		}
+		long total = 0;
+		for (int size : setSizes) {
+			if (size < 1) {
+				throw new IllegalArgumentException();
+			}
+			total += size;
+		}
+		if (total != numNodes) {
+			throw new IllegalArgumentException("setSizes add up to " + total + ", not " + numNodes);
+		}
+		this.numNodes = numNodes;
+		this.k = k;
+		this.density = density;
+		this.maxDegree = maxDegree;
+		this.setSizes = setSizes.clone();
+		this.seed = seed;
+		this.connected = connected;
+		this.sampling = sampling;
+	}
+
+	/**
+	 * Returns an iterator over the edges, starting from the first
+	 *
+	 * @return
+	 */
+	public EdgeIterator iterator() {
+		return new EdgeIterator();
+	}
+
+	/**
+	 * Builds the graph, with its vertices by decreasing degree like the
+	 * generators sort them, so the result is the same as making a
+	 * CompactGraph of the generator's graph for the same random numbers.
+	 *
+	 * @return
+	 */
+	public CompactGraph toCompactGraph() {
+		// first pass: the iterator counts the degrees itself
+		EdgeIterator edges = iterator();
+		while (edges.next()) {
+		}
+		int[] degree = edges.degree;
+		int[] setOf = edges.setOf;
+		int n = degree.length;
+
+		// number the vertices by decreasing degree, ties in id order
+		int maxDeg = 0;
+		for (int v = 0; v < n; v++) {
+			maxDeg = Math.max(maxDeg, degree[v]);
+		}
+		int[] start = new int[maxDeg + 2];
+		for (int v = 0; v < n; v++) {
+			start[maxDeg - degree[v] + 1]++;
+		}
+		for (int d = 0; d <= maxDeg; d++) {
+			start[d + 1] += start[d];
+		}
+		int[] rank = new int[n];
+		int[] ids = new int[n];
+		int[] setNumber = new int[n];
+		for (int v = 0; v < n; v++) {
+			int r = start[maxDeg - degree[v]]++;
+			rank[v] = r;
+			ids[r] = v;
+			setNumber[r] = connected ? setOf[v] : -1;
+		}
+		int[] offsets = new int[n + 1];
+		for (int r = 0; r < n; r++) {
+			offsets[r + 1] = offsets[r] + degree[ids[r]];
+		}
+
+		// second pass: the same edges again, straight into place
+		edges = null;
+		int[] neighbors = new int[offsets[n]];
+		int[] fill = new int[n];
+		System.arraycopy(offsets, 0, fill, 0, n);
+		EdgeIterator again = iterator();
+		while (again.next()) {
+			int a = rank[again.from];
+			int b = rank[again.to];
+			neighbors[fill[a]++] = b;
+			neighbors[fill[b]++] = a;
+		}
+		return new CompactGraph(offsets, neighbors, ids, setNumber);
+	}
+
+	/**
+	 * Goes through the edges one at a time: next() moves on to the next
+	 * edge, whose ends are then in from and to.
+	 */
+	public class EdgeIterator {
+		public int from;
+		public int to;
+
+		private final Random random = new Random(seed);
+		private final int[][] nodes; // id of every node, by set and column
+		private final int[] setOf;
+		private final int[] degree;
+		private final int[] backbone; // the earlier node each node is connected to, or -1
+		private final double logQ;
+
+		private static final int BACKBONE = 0, EDGES = 1, DONE = 2;
+		private int phase;
+		private int current = 1; // next node whose backbone edge comes out
+		// the pair being looked at while adding random edges
+		private int startRow = 0;
+		private int startCol = 0;
+		private int destRow = -1; // -1 until the pairs of this start node have begun
+		private int destCol;
+		private int[][] open; // nodes below maxDegree of every set, for GEOMETRIC_SKIP
+		private int[] openCount;
+
+		EdgeIterator() {
+			nodes = new int[k][];
+			setOf = new int[numNodes];
+			degree = new int[numNodes];
+			int maxSetSize = 0;
+			for (int row = 0; row < k; row++) {
+				nodes[row] = new int[setSizes[row]];
+				maxSetSize = Math.max(maxSetSize, setSizes[row]);
+			}
+			// ids go column by column, as the generators create the nodes
+			int id = 0;
+			for (int col = 0; col < maxSetSize; col++) {
+				for (int row = 0; row < k; row++) {
+					if (col < nodes[row].length) {
+						nodes[row][col] = id;
+						setOf[id] = row;
+						id++;
+					}
+				}
+			}
+			if (connected) {
+				// the backbone takes the first random numbers, as in the generator
+				backbone = GraphCreator.randomBackbone(setOf, k, maxDegree, random);
+			} else {
+				backbone = new int[numNodes];
+				Arrays.fill(backbone, -1);
+			}
+			logQ = Math.log(1.0 - density);
+			phase = connected ? BACKBONE : EDGES;
+		}
+
+		/**
+		 * Moves on to the next edge
+		 *
+		 * @return false if there are no more edges
+		 */
+		public boolean next() {
+			if (phase == BACKBONE) {
+				if (nextBackbone())
+					return true;
+				phase = EDGES;
+			}
+			if (phase == EDGES) {
+				if (density > 0 && (sampling == GraphCreator.EdgeSampling.GEOMETRIC_SKIP
+						? nextGeometric() : nextPerPair()))
+					return true;
+				phase = DONE;
+			}
+			return false;
+		}
+
+		// the edge from every node to its earlier node in the backbone
+		private boolean nextBackbone() {
+			while (current < numNodes) {
+				int v = current++;
+				if (backbone[v] >= 0)
+					return emit(v, backbone[v]);
+			}
+			return false;
+		}
+
+		// as GraphCreator.addRandomValidEdgesGeometric, one edge at a time
+		private boolean nextGeometric() {
+			if (open == null) {
+				open = new int[k][];
+				openCount = new int[k];
+				for (int row = 0; row < k; row++) {
+					open[row] = new int[nodes[row].length];
+					for (int v : nodes[row]) {
+						if (degree[v] < maxDegree) {
+							open[row][openCount[row]++] = v;
+						}
+					}
+				}
+			}
+			while (startRow < k - 1) {
+				if (startCol == nodes[startRow].length) {
+					startRow++;
+					startCol = 0;
+					continue;
+				}
+				int start = nodes[startRow][startCol];
+				if (destRow < 0) {
+					destRow = startRow + 1;
+					destCol = -1;
+				}
+				while (degree[start] < maxDegree) {
+					destCol += 1 + GraphCreator.geometricSkip(logQ, random);
+					// move the position on into the later sets
+					while (destRow < k && destCol >= openCount[destRow]) {
+						destCol -= openCount[destRow];
+						destRow++;
+					}
+					if (destRow == k) {
+						break;
+					}
+					int dest = open[destRow][destCol];
+					if (!isBackbone(start, dest)) {
+						emit(start, dest);
+						if (degree[dest] >= maxDegree) {
+							// the node swapped into this slot has not been looked at yet
+							open[destRow][destCol] = open[destRow][--openCount[destRow]];
+							destCol--;
+						}
+						return true;
+					}
+				}
+				startCol++;
+				destRow = -1;
+			}
+			return false;
+		}
+
+		// as the per-pair loop of GraphCreator.addRandomValidEdgesSimplified, one edge at a time
+		private boolean nextPerPair() {
+			while (startRow < k - 1) {
+				if (startCol == nodes[startRow].length) {
+					startRow++;
+					startCol = 0;
+					continue;
+				}
+				int start = nodes[startRow][startCol];
+				if (destRow < 0) {
+					destRow = startRow + 1;
+					destCol = 0;
+				}
+				if (destRow < k && degree[start] < maxDegree) {
+					if (destCol < nodes[destRow].length && degree[nodes[destRow][destCol]] < maxDegree) {
+						int dest = nodes[destRow][destCol++];
+						if (!isBackbone(start, dest) && random.nextDouble() < density)
+							return emit(start, dest);
+					} else {
+						destRow++;
+						destCol = 0;
+					}
+					continue;
+				}
+				startCol++;
+				destRow = -1;
+			}
+			return false;
+		}
+
+		// the only edges that can come up twice are the backbone ones
+		private boolean isBackbone(int a, int b) {
+			return backbone[a] == b || backbone[b] == a;
+		}
+
+		private boolean emit(int a, int b) {
+			from = a;
+			to = b;
+			degree[a]++;
+			degree[b]++;
+			return true;
+		}
+	}
+}
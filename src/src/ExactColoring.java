@@ -0,0 +1,335 @@
+package src;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Exact coloring by DSATUR branch-and-bound, to find the chromatic number
+ * of graphs of up to a few hundred vertices.
+ *
+ * The lower bound is the largest clique found by growing a clique from
+ * every vertex, and the vertices of that clique get the colors 1..q before
+ * the search starts. The upper bound starts from an iterated greedy
+ * coloring. The search always branches on the uncolored vertex with the 
+ * most different colors among its neighbors (ties to the one with the most
+ * uncolored neighbors), tries every
+ * color it can take below the best coloring so far plus one new color, and
+ * stops as soon as a coloring uses as many colors as the clique.
+ *
+ * The colors taken by the neighbors of every vertex are a bitset, updated
+ * as vertices are colored and undone from a trail when backtracking. The
+ * branches of the first SPLIT_DEPTH levels are forked as tasks on a
+ * ForkJoinPool, each with a copy of the search state, so idle threads steal
+ * subtrees; below that each task searches on its own. The best coloring is
+ * shared between all tasks.
+ *
+ * The search gives up after nodeLimit search nodes or timeLimit
+ * nanoseconds; colors is then the best coloring found and lowerBound the
+ * clique, and optimal tells whether they met anyway.
+ */
+public class ExactColoring {
+
+	public static final int SPLIT_DEPTH = 4;
+	private static final int CHECK_EVERY = 1024; // search nodes between checking the limits
+
+	public final int lowerBound; // size of the clique found
+	public final int colors; // colors of the best coloring found
+	public final boolean optimal; // true if colors is the chromatic number
+	public final long nodes; // search nodes visited
+	public final long duration; // nanoseconds taken by solve
+	public final Coloring coloring; // the best coloring found
+
+	private ExactColoring(int lowerBound, int colors, boolean optimal, long nodes,
+			long duration, Coloring coloring) {
+		this.lowerBound = lowerBound;
+		this.colors = colors;
+		this.optimal = optimal;
+		this.nodes = nodes;
+		this.duration = duration;
+		this.coloring = coloring;
+	}
+
+	/**
+	 * Finds a coloring of g with as few colors as possible.
+	 *
+	 * @param g
+	 * @param pool - runs the search; it is not shut down
+	 * @param nodeLimit - number of search nodes to give up after
+	 * @param timeLimit - nanoseconds to give up after
+	 * @return
+	 */
+	public static ExactColoring solve(CompactGraph g, ForkJoinPool pool, long nodeLimit,
+			long timeLimit) {
+		long startTime = System.nanoTime();
+		Search search = new Search(g, nodeLimit, startTime + timeLimit);
+		int[] clique = search.largestClique();
+
+		// iterated greedy, for a tenth of the time, gives the first upper bound
+		Coloring c = new Coloring(g.numNodes);
+		new Analysis.analyzeIteratedGreedy(new Analysis.analyzeStrictDecreasingFunction(), 
+				timeLimit / 10, 1000).runTest(g, c);
+		search.best = c.numColors();
+		search.bestColor = c.color;
+
+		if (search.best > clique.length) {
+			State root = new State(g);
+			for (int i = 0; i < clique.length; i++) {
+				root.assign(clique[i], i + 1);
+			}
+			pool.invoke(new Branch(search, root, -1, 0, 0));
+		}
+		boolean optimal = !search.aborted || search.best == clique.length;
+		Coloring best = new Coloring(g.numNodes);
+		System.arraycopy(search.bestColor, 0, best.color, 0, g.numNodes);
+		return new ExactColoring(clique.length, search.best, optimal, search.nodes.get(),
+				System.nanoTime() - startTime, best);
+	}
+
+	/*
+	 * What all the tasks of one solve share: the graph as bitsets, the
+	 * limits and the best coloring so far
+	 */
+	private static class Search {
+		final CompactGraph g;
+		final long[][] adjacent; // neighbors of every vertex as a bitset
+		final long nodeLimit;
+		final long deadline;
+		final AtomicLong nodes = new AtomicLong();
+		volatile boolean aborted;
+		volatile int best;
+		int[] bestColor;
+		int lowerBound;
+
+		Search(CompactGraph g, long nodeLimit, long deadline) {
+			this.g = g;
+			this.nodeLimit = nodeLimit;
+			this.deadline = deadline;
+			adjacent = new long[g.numNodes][(g.numNodes + 63) >>> 6];
+			for (int v = 0; v < g.numNodes; v++) {
+				for (int i = g.offsets[v]; i < g.offsets[v + 1]; i++) {
+					int n = g.neighbors[i];
+					adjacent[v][n >>> 6] |= 1L << n;
+				}
+			}
+		}
+
+		/*
+		 * Grows a clique from every vertex, always adding the candidate of
+		 * highest degree, which is the lowest numbered one, and returns
+		 * the largest
+		 */
+		int[] largestClique() {
+			int n = g.numNodes;
+			int[] best = new int[0];
+			int[] clique = new int[n];
+			long[] candidates = new long[(n + 63) >>> 6];
+			for (int v = 0; v < n; v++) {
+				if (g.degree[v] < best.length)
+					continue; // can't be in a larger clique
+				int size = 0;
+				clique[size++] = v;
+				System.arraycopy(adjacent[v], 0, candidates, 0, candidates.length);
+				int word = 0;
+				while (true) {
+					while (word < candidates.length && candidates[word] == 0) {
+						word++;
+					}
+					if (word == candidates.length)
+						break;
+					int u = (word << 6) + Long.numberOfTrailingZeros(candidates[word]);
+					clique[size++] = u;
+					for (int w = 0; w < candidates.length; w++) {
+						candidates[w] &= adjacent[u][w];
+					}
+				}
+				if (size > best.length)
+					best = Arrays.copyOf(clique, size);
+			}
+			lowerBound = best.length;
+			return best;
+		}
+
+		synchronized void solution(State s) {
+			if (s.maxUsed < best) {
+				bestColor = s.color.clone();
+				best = s.maxUsed;
+			}
+		}
+
+		// adds the nodes a task visited since it last checked, and checks the limits
+		void check(State s) {
+			if (nodes.addAndGet(s.unreported) > nodeLimit || System.nanoTime() > deadline)
+				aborted = true;
+			s.unreported = 0;
+		}
+
+		// true once nothing better can be found
+		boolean finished() {
+			return aborted || best == lowerBound;
+		}
+
+		void search(State s, int depth) {
+			if (++s.unreported >= CHECK_EVERY)
+				check(s);
+			if (finished() || s.maxUsed >= best)
+				return;
+			if (s.colored == g.numNodes) {
+				solution(s);
+				return;
+			}
+			int v = s.select();
+			int limit = Math.min(s.maxUsed + 1, best - 1);
+			if (depth < SPLIT_DEPTH) {
+				List<Branch> branches = new ArrayList<Branch>();
+				for (int c = 1; c <= limit; c++) {
+					if (!s.taken(v, c))
+						branches.add(new Branch(this, s.copy(), v, c, depth + 1));
+				}
+				RecursiveAction.invokeAll(branches);
+			} else {
+				for (int c = 1; c <= limit && c < best; c++) {
+					if (!s.taken(v, c)) {
+						int mark = s.assign(v, c);
+						search(s, depth + 1);
+						s.undo(v, mark);
+						if (finished())
+							return;
+					}
+				}
+			}
+		}
+	}
+
+	/*
+	 * One partial coloring. taken[v] has bit c set when a neighbor of v has
+	 * color c, and saturation[v] is the number of bits set.
+	 */
+	private static class State {
+		final CompactGraph g;
+		final int[] color;
+		final long[][] taken;
+		final int[] saturation;
+		final int[] free; // number of uncolored neighbors
+		int[] trail; // vertices whose taken bit was set, to undo in reverse
+		int trailSize;
+		int colored;
+		int maxUsed;
+		long unreported; // search nodes not yet added to Search.nodes
+
+		State(CompactGraph g) {
+			this.g = g;
+			color = new int[g.numNodes];
+			taken = new long[g.numNodes][(g.numNodes + 64) >>> 6];
+			saturation = new int[g.numNodes];
+			free = g.degree.clone();
+			trail = new int[16];
+		}
+
+		private State(State s) {
+			g = s.g;
+			color = s.color.clone();
+			taken = new long[s.taken.length][];
+			for (int v = 0; v < taken.length; v++) {
+				taken[v] = s.taken[v].clone();
+			}
+			saturation = s.saturation.clone();
+			free = s.free.clone();
+			trail = new int[16];
+			colored = s.colored;
+			maxUsed = s.maxUsed;
+		}
+
+		State copy() {
+			return new State(this);
+		}
+
+		boolean taken(int v, int c) {
+			return (taken[v][c >>> 6] & (1L << c)) != 0;
+		}
+
+		// colors v with c and returns the mark to undo it with
+		int assign(int v, int c) {
+			int mark = trailSize;
+			color[v] = c;
+			colored++;
+			for (int i = g.offsets[v]; i < g.offsets[v + 1]; i++) {
+				int n = g.neighbors[i];
+				free[n]--;
+				if (color[n] == 0 && !taken(n, c)) {
+					taken[n][c >>> 6] |= 1L << c;
+					saturation[n]++;
+					push(n);
+				}
+			}
+			// the old maxUsed goes on top, for undo to take off first
+			push(maxUsed);
+			maxUsed = Math.max(maxUsed, c);
+			return mark;
+		}
+
+		void undo(int v, int mark) {
+			int c = color[v];
+			maxUsed = trail[--trailSize];
+			while (trailSize > mark) {
+				int n = trail[--trailSize];
+				taken[n][c >>> 6] &= ~(1L << c);
+				saturation[n]--;
+			}
+			for (int i = g.offsets[v]; i < g.offsets[v + 1]; i++) {
+				free[g.neighbors[i]]++;
+			}
+			color[v] = 0;
+			colored--;
+		}
+
+		private void push(int value) {
+			if (trailSize == trail.length)
+				trail = Arrays.copyOf(trail, 2 * trailSize);
+			trail[trailSize++] = value;
+		}
+
+		// the uncolored vertex of highest saturation, ties to the most uncolored neighbors
+		int select() {
+			int best = -1;
+			for (int v = 0; v < color.length; v++) {
+				if (color[v] == 0 && (best < 0 || saturation[v] > saturation[best]
+						|| (saturation[v] == saturation[best] && free[v] > free[best])))
+					best = v;
+			}
+			return best;
+		}
+	}
+
+	// colors v with c in its own copy of the state and searches below it
+	private static class Branch extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+		private final Search search;
+		private final State state;
+		private final int v;
+		private final int c;
+		private final int depth;
+
+		Branch(Search search, State state, int v, int c, int depth) {
+			this.search = search;
+			this.state = state;
+			this.v = v;
+			this.c = c;
+			this.depth = depth;
+		}
+
+		@Override
+		protected void compute() {
+			if (v >= 0) {
+				if (search.finished() || c >= search.best)
+					return;
+				state.assign(v, c);
+			}
+			search.search(state, depth);
+			search.check(state);
+		}
+	}
+}
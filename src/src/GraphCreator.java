@@ -1,18 +1,42 @@
 package src;
 
 import java.util.ArrayList;
-import java.util.Collections;
+import java.util.Arrays;
 import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
 
 import src.BasicGraph.Node;
 
 /** 
  * Note that methods are sorted in order of most recent algorithm at the top
  * of this class, and older algorithms farther down.
+ * The overloads that take no Random or seed use a new Random() on each
+ * call, so calls from several threads share no generator.
  */
 public class GraphCreator {
 
-	private static Random randomGenerator = new Random();
+	/**
+	 * The ways addRandomValidEdgesSimplified can decide which extra edges
+	 * to add. Both add each valid edge with probability density.
+	 * PER_PAIR visits every valid pair and draws one random number for it.
+	 * GEOMETRIC_SKIP draws the gap to the next added pair directly, so its
+	 * cost depends on the number of edges added rather than the number of
+	 * pairs. The generators use PER_PAIR unless they are given a mode.
+	 */
+	public enum EdgeSampling {
+		PER_PAIR, GEOMETRIC_SKIP;
+
+		/**
+		 * Returns the faster mode for density: skipping pays off when most
+		 * pairs are skipped, and costs a logarithm per edge otherwise
+		 *
+		 * @param density
+		 * @return
+		 */
+		public static EdgeSampling forDensity(double density) {
+			return density < 0.5 ? GEOMETRIC_SKIP : PER_PAIR;
+		}
+	}
 
 	/** 
 	 * This generalizes createRandomConnectedGraph so that sets of different
@@ -25,8 +49,8 @@ public class GraphCreator {
 	 * Creates a k-colorable graph with the specified number of nodes. This is
 	 * done by creating all nodes and then adding random edges between valid 
 	 * nodes. When a new node is created, an edge is added between it and a 
-	 * node that was previously created and which is in a different
-	 * color set.
+	 * random node that was previously created, which is in a different
+	 * color set and still below maxDegree.
 	 * This will ensure that the graph is both connected and k-colorable.
 	 * The density is a double in the range [0, 1], and it determines how
 	 * many extra edges are added after the initial edges which ensure
@@ -56,6 +80,28 @@ public class GraphCreator {
 	 */
 	public static BasicGraph createRandomConnectedGraphSimplified(int numNodes,
 			int k, double density, int maxDegree, int[] setSizes) {
+		return createRandomConnectedGraphSimplified(numNodes, k, density, 
+				maxDegree, setSizes, new Random());
+	}
+
+	/**
+	 * Same as createRandomConnectedGraphSimplified above, but all random
+	 * numbers are drawn from random instead of a new Random(), so
+	 * graphs can be created from several threads without contending on it.
+	 */
+	public static BasicGraph createRandomConnectedGraphSimplified(int numNodes,
+			int k, double density, int maxDegree, int[] setSizes, Random random) {
+		return createRandomConnectedGraphSimplified(numNodes, k, density, maxDegree,
+				setSizes, random, EdgeSampling.PER_PAIR);
+	}
+
+	/**
+	 * Same as createRandomConnectedGraphSimplified above, with the extra
+	 * edges chosen by sampling.
+	 */
+	public static BasicGraph createRandomConnectedGraphSimplified(int numNodes,
+			int k, double density, int maxDegree, int[] setSizes, Random random,
+			EdgeSampling sampling) {
 
 		// check that parameters are valid
 		if (numNodes < 0 || k < 2 || density < 0 || density > 1 || 
@@ -84,7 +130,13 @@ public class GraphCreator {
 			nodes[i] = new Node[setSizes[i]];
 		}
 
-		// create Node column-by-column, connecting to a Node with smaller id from a different set
+		// create Node column-by-column, remembering them by id
+		int total = 0;
+		for (int i = 0; i < k; i++) {
+			total += setSizes[i];
+		}
+		Node[] byId = new Node[total];
+		int[] setOf = new int[total];
 		Node newNode;
 		int id = 0;
 		for (int col = 0; col < maxSetSize; col++) {
@@ -93,32 +145,133 @@ public class GraphCreator {
 					newNode = graph.new Node(id, row); // row is setNumber
 					nodes[row][col] = newNode;
 					graph.addNode(newNode);
-
-					if (id > 0) {
-						// connect to a previously made node from a different set
-						// which has degree < maxDegree
-						for (int prev = id - 1; prev >= 0; prev--) {
-							if (graph.allNodes.get(prev).setNumber != row &&
-									graph.allNodes.get(prev).degree < maxDegree) {
-								// connect new current node to a valid previous one
-								graph.addEdge(newNode, graph.allNodes.get(prev));
-								break;
-							}
-						}
-					}
+					byId[id] = newNode;
+					setOf[id] = row;
 					id++;
 				}
 			}
 		}
 
+		// connect every Node to a random previously made one from a different set
+		int[] backbone = randomBackbone(setOf, k, maxDegree, random);
+		for (int v = 1; v < total; v++) {
+			if (backbone[v] >= 0) {
+				graph.addEdge(byId[v], byId[backbone[v]]);
+			}
+		}
+
 		// look at all edges, add ones randomly with given density probability
-		addRandomValidEdgesSimplified(graph, density, maxDegree, nodes);
+		addRandomValidEdgesSimplified(graph, density, maxDegree, nodes, random, sampling);
 
 		// sort nodes
-		Collections.sort(graph.allNodes, BasicGraph.compareNodes);
+		graph.sortByDegree();
 		return graph;
 	}
 
+	/*
+	 * Returns the spanning tree of the connected generators: for every node
+	 * v in id order, the node it is connected to, picked uniformly from the
+	 * earlier nodes of other sets still below maxDegree, or -1 if there is
+	 * none. The earlier nodes below maxDegree are kept both in one flat
+	 * array and in one array per set, and swap-removed from both as they
+	 * fill up. While at most half of them are in the set of v, a pick draws
+	 * from the flat array until it hits another set, under two draws on
+	 * average; otherwise it walks the per-set counts in O(k). setOf[v] is
+	 * the set of node v, from 0 to k - 1.
+	 */
+	static int[] randomBackbone(int[] setOf, int k, int maxDegree, Random random) {
+		int n = setOf.length;
+		int[] open = new int[n];
+		int totalOpen = 0;
+		int[][] openInSet = new int[k][];
+		int[] openCount = new int[k];
+		for (int v = 0; v < n; v++) {
+			openCount[setOf[v]]++;
+		}
+		for (int row = 0; row < k; row++) {
+			openInSet[row] = new int[openCount[row]];
+			openCount[row] = 0;
+		}
+		// where every open node is in open and in openInSet
+		int[] openAt = new int[n];
+		int[] setAt = new int[n];
+		int[] degree = new int[n];
+		int[] backbone = new int[n];
+		for (int v = 0; v < n; v++) {
+			int row = setOf[v];
+			backbone[v] = -1;
+			int candidates = totalOpen - openCount[row];
+			if (candidates > 0) {
+				int prev;
+				if (2 * openCount[row] <= totalOpen) {
+					do {
+						prev = open[random.nextInt(totalOpen)];
+					} while (setOf[prev] == row);
+				} else {
+					int pick = random.nextInt(candidates);
+					int set = 0;
+					while (set == row || pick >= openCount[set]) {
+						if (set != row)
+							pick -= openCount[set];
+						set++;
+					}
+					prev = openInSet[set][pick];
+				}
+				backbone[v] = prev;
+				degree[v]++;
+				if (++degree[prev] >= maxDegree) {
+					int last = open[--totalOpen];
+					open[openAt[prev]] = last;
+					openAt[last] = openAt[prev];
+					int set = setOf[prev];
+					last = openInSet[set][--openCount[set]];
+					openInSet[set][setAt[prev]] = last;
+					setAt[last] = setAt[prev];
+				}
+			}
+			if (degree[v] < maxDegree) {
+				openAt[v] = totalOpen;
+				open[totalOpen++] = v;
+				setAt[v] = openCount[row];
+				openInSet[row][openCount[row]++] = v;
+			}
+		}
+		return backbone;
+	}
+
+	/**
+	 * Same as createRandomConnectedGraphSimplified, but the finished graph is
+	 * returned in its compressed sparse row form, ready for the heuristics in
+	 * Analysis. See createRandomConnectedGraphSimplified for the parameters.
+	 */
+	public static CompactGraph createCompactConnectedGraphSimplified(int numNodes,
+			int k, double density, int maxDegree, int[] setSizes) {
+		return createConnectedEdgeStream(numNodes, k, density, maxDegree, setSizes,
+				new Random().nextLong()).toCompactGraph();
+	}
+
+	/**
+	 * Returns the edges createRandomConnectedGraphSimplified would add to its
+	 * graph with new Random(seed), as an EdgeStream which makes them one at
+	 * a time without building the graph. See 
+	 * createRandomConnectedGraphSimplified for the parameters.
+	 */
+	public static EdgeStream createConnectedEdgeStream(int numNodes, int k,
+			double density, int maxDegree, int[] setSizes, long seed) {
+		return createConnectedEdgeStream(numNodes, k, density, maxDegree, setSizes, seed,
+				EdgeSampling.PER_PAIR);
+	}
+
+	/**
+	 * Same as createConnectedEdgeStream above, with the extra edges chosen
+	 * by sampling.
+	 */
+	public static EdgeStream createConnectedEdgeStream(int numNodes, int k,
+			double density, int maxDegree, int[] setSizes, long seed, EdgeSampling sampling) {
+		return new EdgeStream(numNodes, k, density, maxDegree, setSizes, seed,
+				true, sampling);
+	}
+
 	/** 
 	 * This generalizes createRandomGraph so that sets of different
 	 * sizes can be used.
@@ -158,6 +311,27 @@ public class GraphCreator {
 	 */
 	public static BasicGraph createRandomGraphSimplified(int numNodes,
 			int k, double density, int maxDegree, int[] setSizes) {
+		return createRandomGraphSimplified(numNodes, k, density, maxDegree, 
+				setSizes, new Random());
+	}
+
+	/**
+	 * Same as createRandomGraphSimplified above, but all random numbers are
+	 * drawn from random instead of a new Random().
+	 */
+	public static BasicGraph createRandomGraphSimplified(int numNodes,
+			int k, double density, int maxDegree, int[] setSizes, Random random) {
+		return createRandomGraphSimplified(numNodes, k, density, maxDegree, setSizes,
+				random, EdgeSampling.PER_PAIR);
+	}
+
+	/**
+	 * Same as createRandomGraphSimplified above, with the edges chosen by
+	 * sampling.
+	 */
+	public static BasicGraph createRandomGraphSimplified(int numNodes,
+			int k, double density, int maxDegree, int[] setSizes, Random random,
+			EdgeSampling sampling) {
 
 		// check that parameters are valid
 		if (numNodes < 0 || k < 2 || density < 0 || density > 1 || 
@@ -200,16 +374,70 @@ public class GraphCreator {
 		}
 
 		// look at all edges, add ones randomly with given density probability
-		addRandomValidEdgesSimplified(graph, density, maxDegree, nodes);
+		addRandomValidEdgesSimplified(graph, density, maxDegree, nodes, random, sampling);
 
 		// sort nodes
-		Collections.sort(graph.allNodes, BasicGraph.compareNodes);
+		graph.sortByDegree();
 		return graph;
 	}
 
+	/**
+	 * Creates a graph like createRandomConnectedGraphSimplified, sampling the
+	 * edges between every pair of sets in parallel on pool. The graph only
+	 * depends on seed, not on the number of threads, but it is not the graph
+	 * createRandomConnectedGraphSimplified makes from the same seed, and the
+	 * maxDegree of every node is split over the other sets; see
+	 * BlockGenerator. See createRandomConnectedGraphSimplified for the other
+	 * parameters.
+	 *
+	 * @param pool - samples the blocks; it is not shut down
+	 */
+	public static CompactGraph createCompactConnectedGraphParallel(int numNodes, int k,
+			double density, int maxDegree, int[] setSizes, long seed, ForkJoinPool pool) {
+		return BlockGenerator.create(numNodes, k, density, maxDegree, setSizes, seed,
+				true, pool);
+	}
+
+	/**
+	 * Same as createCompactConnectedGraphParallel, but like
+	 * createRandomGraphSimplified the graph is not necessarily connected.
+	 *
+	 * @param pool - samples the blocks; it is not shut down
+	 */
+	public static CompactGraph createCompactGraphParallel(int numNodes, int k,
+			double density, int maxDegree, int[] setSizes, long seed, ForkJoinPool pool) {
+		return BlockGenerator.create(numNodes, k, density, maxDegree, setSizes, seed,
+				false, pool);
+	}
+
+	/**
+	 * Returns the edges createRandomGraphSimplified would add to its graph
+	 * with new Random(seed), as an EdgeStream. See createRandomGraphSimplified
+	 * for the parameters.
+	 */
+	public static EdgeStream createEdgeStream(int numNodes, int k,
+			double density, int maxDegree, int[] setSizes, long seed) {
+		return createEdgeStream(numNodes, k, density, maxDegree, setSizes, seed,
+				EdgeSampling.PER_PAIR);
+	}
+
+	/**
+	 * Same as createEdgeStream above, with the edges chosen by sampling.
+	 */
+	public static EdgeStream createEdgeStream(int numNodes, int k,
+			double density, int maxDegree, int[] setSizes, long seed, EdgeSampling sampling) {
+		return new EdgeStream(numNodes, k, density, maxDegree, setSizes, seed,
+				false, sampling);
+	}
+
 	// look at all edges, add ones randomly with given density probability
 	private static void addRandomValidEdgesSimplified(BasicGraph graph, 
-			double density, int maxDegree, Node[][] nodes) {
+			double density, int maxDegree, Node[][] nodes, Random random,
+			EdgeSampling sampling) {
+		if (sampling == EdgeSampling.GEOMETRIC_SKIP) {
+			addRandomValidEdgesGeometric(graph, density, maxDegree, nodes, random);
+			return;
+		}
 		// TODO can this be simplified??-- hideous layering of for loops here... sorry
 		Node start, dest;
 		for (int startRow = 0; startRow < nodes.length - 1; startRow++) {
@@ -222,7 +450,7 @@ public class GraphCreator {
 							nodes[destRow][destCol].degree < maxDegree; destCol++) {
 						dest = nodes[destRow][destCol];
 						if (!graph.existsEdge(start, dest) && 
-								randomGenerator.nextDouble() < density) {
+								random.nextDouble() < density) {
 							graph.addEdge(start, dest);
 						}
 					}
@@ -231,6 +459,85 @@ public class GraphCreator {
 		}
 	}
 
+	/*
+	 * Same as the per-pair loop above, but instead of drawing a random number
+	 * for every pair it draws the number of pairs to skip before the next
+	 * added one. With p = density, the gap before the next success of
+	 * independent p-trials is geometric: floor(log(1 - r) / log(1 - p)) for
+	 * uniform r (Batagelj & Brandes, "Efficient generation of large random
+	 * networks", 2005). 
+	 * 
+	 * For each start node the pairs are the nodes of every later set, one
+	 * set after the other. Nodes which reached maxDegree are swap-removed 
+	 * from the per-set arrays of open nodes, so they are never looked at 
+	 * again and the skips only count valid pairs.
+	 */
+	private static void addRandomValidEdgesGeometric(BasicGraph graph, 
+			double density, int maxDegree, Node[][] nodes, Random random) {
+		if (density <= 0) {
+			return;
+		}
+		double logQ = Math.log(1.0 - density); // -Infinity for density 1, so every skip is 0
+
+		// open[row][0 .. openCount[row]) are the nodes of that set below maxDegree
+		Node[][] open = new Node[nodes.length][];
+		int[] openCount = new int[nodes.length];
+		for (int row = 0; row < nodes.length; row++) {
+			open[row] = new Node[nodes[row].length];
+			for (Node n : nodes[row]) {
+				if (n.degree < maxDegree) {
+					open[row][openCount[row]++] = n;
+				}
+			}
+		}
+
+		Node start, dest;
+		for (int startRow = 0; startRow < nodes.length - 1; startRow++) {
+			for (int startCol = 0; startCol < nodes[startRow].length; startCol++) {
+				start = nodes[startRow][startCol];
+				int destRow = startRow + 1;
+				int destCol = -1;
+				while (start.degree < maxDegree) {
+					destCol += 1 + geometricSkip(logQ, random);
+					// move the position on into the later sets
+					while (destRow < nodes.length && destCol >= openCount[destRow]) {
+						destCol -= openCount[destRow];
+						destRow++;
+					}
+					if (destRow == nodes.length) {
+						break;
+					}
+					dest = open[destRow][destCol];
+					if (graph.addEdge(start, dest) && dest.degree >= maxDegree) {
+						// the node swapped into this slot has not been looked at yet
+						open[destRow][destCol] = open[destRow][--openCount[destRow]];
+						destCol--;
+					}
+				}
+			}
+		}
+	}
+
+	/*
+	 * The SplitMix64 finalizer: consecutive inputs give unrelated outputs,
+	 * so seeds can be handed out by counting
+	 */
+	static long mixSeed(long z) {
+		z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+		z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+		return z ^ (z >>> 31);
+	}
+
+	// number of failed trials before the next success, given log(1 - p)
+	static int geometricSkip(double logQ, Random random) {
+		if (logQ == Double.NEGATIVE_INFINITY) {
+			return 0; // density 1, every pair is added
+		}
+		double skip = Math.floor(Math.log(1.0 - random.nextDouble()) / logQ);
+		// keep huge gaps (tiny densities) from overflowing the position
+		return skip < Integer.MAX_VALUE / 2 ? (int)skip : Integer.MAX_VALUE / 2;
+	}
+
 	/** 
 	 * Creates a k-colorable graph with the specified number of nodes. This is
 	 * done by creating all nodes, originally all connected in a line,
@@ -239,7 +546,8 @@ public class GraphCreator {
 	 * many extra edges are added after the initial edges which ensure
 	 * connectedness. 
 	 * e.g. if there are 11 valid edges which can be added and density = 0.5,
-	 * then (int)0.5*11 = 5 edges will be added. 
+	 * then (int)0.5*11 = 5 edges will be added. Fewer are added only
+	 * when maxDegree leaves no valid edge; see addRandomValidEdges.
 	 * The maxDegree sets a limit so that every node will have a degree less
 	 * than or equal to this number.
 	 * 
@@ -256,6 +564,16 @@ public class GraphCreator {
 	 */
 	public static BasicGraph createRandomConnectedGraphFromLine(int numNodes, 
 			int k, double density, int maxDegree) {
+		return createRandomConnectedGraphFromLine(numNodes, k, density, 
+				maxDegree, new Random());
+	}
+
+	/**
+	 * Same as createRandomConnectedGraphFromLine above, but all random 
+	 * numbers are drawn from random instead of a new Random().
+	 */
+	public static BasicGraph createRandomConnectedGraphFromLine(int numNodes, 
+			int k, double density, int maxDegree, Random random) {
 
 		if (numNodes < 0 || k < 2 || density < 0 || density > 1 || 
 				maxDegree < 1) {
@@ -263,21 +581,26 @@ public class GraphCreator {
 		}
 
 		BasicGraph graph = new BasicGraph();
+		if (numNodes == 0) {
+			return graph;
+		}
 
 		// create nodes, connecting in a line as they are created
-		graph.addNode(0); // add first node
+		Node prevNode = graph.new Node(0);
+		graph.addNode(prevNode); // add first node
 		Node currNode;
 		for (int id = 1; id < numNodes; id++) {
 			currNode = graph.new Node(id);
 			graph.addNode(currNode);
 			// connect new node (currNode) to the previous node
-			graph.addEdge(currNode, graph.allNodes.get(id - 1));
+			graph.addEdge(currNode, prevNode);
+			prevNode = currNode;
 		}
 
-		addRandomValidEdges(graph, numNodes, k, density, maxDegree);
+		addRandomValidEdges(graph, numNodes, k, density, maxDegree, random);
 
 		// sort nodes
-		Collections.sort(graph.allNodes, BasicGraph.compareNodes);
+		graph.sortByDegree();
 		return graph;
 	}
 
@@ -289,7 +612,8 @@ public class GraphCreator {
 	 * The density is a double in the range [0, 1], and it determines how
 	 * many edges are added.
 	 * e.g. if there are 11 valid edges which can be added and density = 0.5,
-	 * then (int)0.5*11 = 5 edges will be added. 
+	 * then (int)0.5*11 = 5 edges will be added. Fewer are added only
+	 * when maxDegree leaves no valid edge; see addRandomValidEdges.
 	 * The maxDegree sets a limit so that every node will have a degree less
 	 * than or equal to this number.
 	 * 
@@ -306,6 +630,15 @@ public class GraphCreator {
 	 */
 	public static BasicGraph createRandomGraph(int numNodes, int k, 
 			double density, int maxDegree) {
+		return createRandomGraph(numNodes, k, density, maxDegree, new Random());
+	}
+
+	/**
+	 * Same as createRandomGraph above, but all random numbers are drawn 
+	 * from random instead of a new Random().
+	 */
+	public static BasicGraph createRandomGraph(int numNodes, int k, 
+			double density, int maxDegree, Random random) {
 
 		if (numNodes < 0 || k < 2 || density < 0 || density > 1 || 
 				maxDegree < 1) {
@@ -319,10 +652,10 @@ public class GraphCreator {
 			graph.addNode(id);
 		}
 
-		addRandomValidEdges(graph, numNodes, k, density, maxDegree);
+		addRandomValidEdges(graph, numNodes, k, density, maxDegree, random);
 
 		// sort nodes
-		Collections.sort(graph.allNodes, BasicGraph.compareNodes);
+		graph.sortByDegree();
 		return graph;
 	}
 
@@ -334,16 +667,21 @@ public class GraphCreator {
 	 * valid edge will be added. 
 	 * e.g. if there are 11 valid edges which can be added and density = 0.5,
 	 * then (int)0.5*11 = 5 edges will be added. 
+	 * The edges are drawn at random. Near density 1 most draws hit an edge
+	 * already in the graph, so after MAX_FAILURES such draws in a row the
+	 * valid edges left are listed and added in random order instead.
+	 * Fewer edges than asked for are only added when no valid edge is left.
 	 * 
 	 * @param graph - the graph to which edges are added
 	 * @param numNodes - the number of nodes in the graph
 	 * @param k - specifies that the graph is k-colorable
 	 * @param density - determines how many edges to add; a double in the range 
 	 * [0,1]
-	 * @param maxDegree - all nodes will have degree <= maxDegree
+	 * @param maxDegree - all nodes will have degree <= maxDegree; fewer
+	 * edges are added if every valid edge left would break this
 	 */
 	private static void addRandomValidEdges(BasicGraph graph, int numNodes, 
-			int k, double density, int maxDegree) {
+			int k, double density, int maxDegree, Random random) {
 		/* max number of edges in a k-colorable graph with n nodes:
 		 * if (n%k == 0): (n^2)(k-1)/2k
 		 * else: [(ceil(n/k))^2][(n%k)(n%k - 1)/2] + 
@@ -353,70 +691,188 @@ public class GraphCreator {
 		 * note that in the second case, floor(n/k) == n/k since Java truncates,
 		 * and ceil(n/k) == n/k + 1 since Java truncates and we know n%k != 0.
 		 */
-		int maxNumEdges;
+		long maxNumEdges;
+		long n = numNodes;
 		int mod = numNodes % k;
 		if (mod == 0) {
-			maxNumEdges = (numNodes * numNodes * (k - 1)) / (2 * k);
+			maxNumEdges = (n * n * (k - 1)) / (2 * k);
 		} else {
-			int floor = numNodes / k;
-			int ceil = floor + 1;
-			int kMinusMod = k - mod;
+			long floor = numNodes / k;
+			long ceil = floor + 1;
+			long kMinusMod = k - mod;
 			maxNumEdges = (ceil * ceil * ((mod * (mod - 1)) / 2)) +
 					(floor * floor * ((kMinusMod * (kMinusMod - 1)) / 2)) +
 					(ceil * floor * mod * kMinusMod);
 		}
 		
 		// determine actual number of edges to use, based on density
-		int numEdges = (int)(maxNumEdges * density);
+		long numEdges = (long)(maxNumEdges * density);
+
+		/*
+		 * The nodes below maxDegree are kept in one flat pool and in one pool
+		 * per set (id % k), and swap-removed from both when they fill up,
+		 * so both ends are drawn from valid nodes straight away. The start is
+		 * uniform over the flat pool. The dest is uniform over the nodes of
+		 * the other sets: drawn from the flat pool until it is in another
+		 * set while the set of start holds at most half of the pool, else
+		 * by walking the set pools. Once every pooled node is in the same
+		 * set no valid edge is left and we are done.
+		 */
+		Node[] byId = new Node[numNodes];
+		for (Node node : graph.allNodes) {
+			byId[node.id] = node;
+		}
+		Pools pools = new Pools(numNodes, k);
+		for (int id = 0; id < numNodes; id++) {
+			if (byId[id].degree < maxDegree) {
+				pools.add(id);
+			}
+		}
 
-		
-		// Added a check to determine if the nodes can actually be added. If not, false will be returned
-		// TODO: Remove this fix and make it a better one
-		/// First remove current edges (we know ....)
-		
-		
-		
-		
-		int randomStart, randomDest;
-		// add that amounts of edges (or possibly fewer if repeats occur)
-		for (int i = 0; i < numEdges; i++) {
-			// pick two random nodes of different types (by id)
-			
-//			if(graph.minDegree() >= maxDegree) {
-//				return; // prevent infinite loop //TODO still may have one?? if maxDegree too low
-//			}
-			do {
-				randomStart = randomGenerator.nextInt(numNodes);
-			} while (graph.allNodes.get(randomStart).degree >= maxDegree);
-
-			/*
-			 * TODO note a problem: I tried to only consider edges not already
-			 * in the graph, but this too often leads to very long looping because
-			 * of many iterations before finding a non-duplicate edge.
-			 * So the simplified version is better in this sense, because
-			 * it looks at each possible edge only once, and the randomness is
-			 * more on the probability of it being added than it is on the 
-			 * selection of possible edges being looked at. That is, the 
-			 * simplified version will never run an infinite loop.
-			 */
-
-			do {
-				randomDest = randomGenerator.nextInt(numNodes);
-			} while ((randomStart % k) == (randomDest % k) ||
-					//		graph.existsEdge(graph.allNodes.get(randomStart), graph.allNodes.get(randomDest)) ||
-					graph.allNodes.get(randomDest).degree >= maxDegree);
-			// don't add edges between nodes if their ids are the same mod k
-			// or if at least one of the nodes already has the max degree.
-
-			// add the edge
-			graph.addEdge(graph.allNodes.get(randomStart), 
-					graph.allNodes.get(randomDest));
-		}
-//
-//		System.out.println("numNodes: " + numNodes + 
-//				", maxNumEdges: " + maxNumEdges + 
-//				", density: " + density +
-//				", numEdges: " + numEdges);
+		// add that amount of edges, or fewer if no valid edge is left
+		long added = 0;
+		int failures = 0;
+		while (added < numEdges && pools.total > 0) {
+			if (failures == MAX_FAILURES) {
+				addRemainingEdges(graph, byId, pools, numEdges - added, maxDegree, random);
+				return;
+			}
+			int randomStart = pools.all[random.nextInt(pools.total)];
+			int startSet = pools.set[randomStart];
+			int others = pools.total - pools.size[startSet];
+			if (others == 0) {
+				return; // every node below maxDegree is in one set
+			}
+			int randomDest;
+			if (2 * pools.size[startSet] <= pools.total) {
+				do {
+					randomDest = pools.all[random.nextInt(pools.total)];
+				} while (pools.set[randomDest] == startSet);
+			} else {
+				randomDest = pools.pick(startSet, random.nextInt(others));
+			}
+			// don't add an edge twice
+			if (graph.addEdge(byId[randomStart], byId[randomDest])) {
+				added++;
+				failures = 0;
+				if (byId[randomStart].degree >= maxDegree) {
+					pools.remove(randomStart);
+				}
+				if (byId[randomDest].degree >= maxDegree) {
+					pools.remove(randomDest);
+				}
+			} else {
+				failures++;
+			}
+		}
+	}
+
+	// draws in a row finding only existing edges before addRandomValidEdges
+	// lists the valid edges left instead
+	private static final int MAX_FAILURES = 1024;
+
+	/*
+	 * Adds count of the valid edges between pooled nodes, or all of them if
+	 * there are fewer, in random order. Only called once random draws stop
+	 * finding new edges, so few valid edges are left to list.
+	 */
+	private static void addRemainingEdges(BasicGraph graph, Node[] byId, Pools pools,
+			long count, int maxDegree, Random random) {
+		boolean[] adjacent = new boolean[byId.length];
+		long[] pairs = new long[16];
+		int numPairs = 0;
+		for (int i = 0; i < pools.total; i++) {
+			int start = pools.all[i];
+			for (Node node : byId[start].connections) {
+				adjacent[node.id] = true;
+			}
+			for (int j = i + 1; j < pools.total; j++) {
+				int dest = pools.all[j];
+				if (pools.set[dest] != pools.set[start] && !adjacent[dest]) {
+					if (numPairs == pairs.length)
+						pairs = Arrays.copyOf(pairs, 2 * numPairs);
+					pairs[numPairs++] = (long) start << 32 | dest;
+				}
+			}
+			for (Node node : byId[start].connections) {
+				adjacent[node.id] = false;
+			}
+		}
+		// shuffle as we go, a pair stays valid while both ends are below maxDegree
+		for (int i = 0; i < numPairs && count > 0; i++) {
+			int r = i + random.nextInt(numPairs - i);
+			long pair = pairs[r];
+			pairs[r] = pairs[i];
+			Node start = byId[(int) (pair >>> 32)];
+			Node dest = byId[(int) pair];
+			if (start.degree < maxDegree && dest.degree < maxDegree) {
+				graph.addEdge(start, dest);
+				count--;
+			}
+		}
+	}
+
+	/*
+	 * The nodes of addRandomValidEdges below maxDegree: all of them in
+	 * all[0 .. total), and those of set r in bySet[r][0 .. size[r]).
+	 * set[id] is the set of node id, id % k.
+	 */
+	private static class Pools {
+		final int[] set;
+		final int[] all;
+		int total;
+		final int[][] bySet;
+		final int[] size;
+		// where each node is in all and in its set
+		final int[] allAt;
+		final int[] setAt;
+
+		Pools(int numNodes, int k) {
+			set = new int[numNodes];
+			all = new int[numNodes];
+			allAt = new int[numNodes];
+			setAt = new int[numNodes];
+			size = new int[k];
+			for (int id = 0; id < numNodes; id++) {
+				set[id] = id % k;
+				size[set[id]]++;
+			}
+			bySet = new int[k][];
+			for (int r = 0; r < k; r++) {
+				bySet[r] = new int[size[r]];
+				size[r] = 0;
+			}
+		}
+
+		void add(int id) {
+			int r = set[id];
+			allAt[id] = total;
+			all[total++] = id;
+			setAt[id] = size[r];
+			bySet[r][size[r]++] = id;
+		}
+
+		// swaps the last node of each pool into the place of id
+		void remove(int id) {
+			int last = all[--total];
+			all[allAt[id]] = last;
+			allAt[last] = allAt[id];
+			int r = set[id];
+			last = bySet[r][--size[r]];
+			bySet[r][setAt[id]] = last;
+			setAt[last] = setAt[id];
+		}
+
+		// the index-th node of the set pools, leaving out set skip
+		int pick(int skip, int index) {
+			int r = 0;
+			while (r == skip || index >= size[r]) {
+				if (r != skip)
+					index -= size[r];
+				r++;
+			}
+			return bySet[r][index];
+		}
 	}
 	
 	/** 
@@ -429,6 +885,14 @@ public class GraphCreator {
 	 */
 	//TODO expand to take k and density? (e.g. if k is 4, then do from squares)
 	public static BasicGraph createRandomGraphFromTriangles(int n) {
+		return createRandomGraphFromTriangles(n, new Random());
+	}
+
+	/**
+	 * Same as createRandomGraphFromTriangles above, but all random numbers
+	 * are drawn from random instead of a new Random().
+	 */
+	public static BasicGraph createRandomGraphFromTriangles(int n, Random random) {
 
 		BasicGraph graph = new BasicGraph();
 
@@ -468,31 +932,31 @@ public class GraphCreator {
 		 * We can add edges between types (0,1), (0,2), and (1,2). */
 		// First determine how many edges there will be between each valid type pair
 		int maxNumEdges = (n * n) / 9; // n/3 per list -> n^2/9 possible edges between each list
-		int numEdges01 = randomGenerator.nextInt(maxNumEdges);
-		int numEdges02 = randomGenerator.nextInt(maxNumEdges);
-		int numEdges12 = randomGenerator.nextInt(maxNumEdges);
+		int numEdges01 = random.nextInt(maxNumEdges);
+		int numEdges02 = random.nextInt(maxNumEdges);
+		int numEdges12 = random.nextInt(maxNumEdges);
 
 		// add these random amounts of edges (or possibly fewer if repeats occur)
 		for (int i = 0; i < numEdges01; i++) {
 			// pick random node of type 0 and another of type 1
-			int randomNode0 = randomGenerator.nextInt(n/3);
-			int randomNode1 = randomGenerator.nextInt(n/3);
+			int randomNode0 = random.nextInt(n/3);
+			int randomNode1 = random.nextInt(n/3);
 			graph.addEdge(nodes0.get(randomNode0), nodes1.get(randomNode1));
 		}
 		for (int i = 0; i < numEdges02; i++) {
 			// pick random node of type 0 and another of type 1
-			int randomNode0 = randomGenerator.nextInt(n/3);
-			int randomNode2 = randomGenerator.nextInt(n/3);
+			int randomNode0 = random.nextInt(n/3);
+			int randomNode2 = random.nextInt(n/3);
 			graph.addEdge(nodes0.get(randomNode0), nodes2.get(randomNode2));
 		}
 		for (int i = 0; i < numEdges12; i++) {
 			// pick random node of type 0 and another of type 1
-			int randomNode1 = randomGenerator.nextInt(n/3);
-			int randomNode2 = randomGenerator.nextInt(n/3);
+			int randomNode1 = random.nextInt(n/3);
+			int randomNode2 = random.nextInt(n/3);
 			graph.addEdge(nodes1.get(randomNode1), nodes2.get(randomNode2));
 		}
 
-		Collections.sort(graph.allNodes, BasicGraph.compareNodes);
+		graph.sortByDegree();
 		return graph;
 	}
 
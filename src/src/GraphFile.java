@@ -0,0 +1,163 @@
+package src;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Binary file format for a CompactGraph and, optionally, a coloring of it.
+ * The file is the CSR arrays of the graph written out as they are, so it
+ * is written in one pass and read without any parsing. Both directions go
+ * through a memory mapping of the whole file.
+ *
+ * Loading copies: every colorer works on the int[] of a CompactGraph, so
+ * read moves each array out of the mapping in a single bulk get and checks
+ * the offsets and neighbors, instead of handing out views into the mapping. That costs a
+ * second copy of the graph in memory while it is read and a load time
+ * that grows with the size of the graph.
+ *
+ * Layout, all little-endian 32 bit ints:
+ *  header: MAGIC, VERSION, numNodes, number of neighbor entries (twice the
+ *          number of edges), flags, 3 unused ints
+ *  offsets[numNodes + 1], neighbors[], ids[numNodes],
+ *  setNumber[numNodes] if flags has HAS_SETS,
+ *  color[numNodes] if flags has HAS_COLORS
+ *
+ * A mapping can be at most 2GB, which limits a file to roughly 250 million
+ * edges.
+ */
+public class GraphFile {
+
+	public static final int MAGIC = 0x46524743; // "CGRF" in little-endian
+	public static final int VERSION = 1;
+	public static final int HAS_SETS = 1;
+	public static final int HAS_COLORS = 2;
+	private static final int HEADER_INTS = 8;
+
+	public final CompactGraph graph;
+	public final Coloring coloring; // null if the file has no colors
+
+	private GraphFile(CompactGraph graph, Coloring coloring) {
+		this.graph = graph;
+		this.coloring = coloring;
+	}
+
+	/**
+	 * Writes g, and coloring unless it is null, to file, replacing it.
+	 * Set numbers are only written if some vertex has one.
+	 *
+	 * @param file
+	 * @param g
+	 * @param coloring - may be null
+	 * @throws IOException
+	 */
+	public static void write(File file, CompactGraph g, Coloring coloring) throws IOException {
+		boolean hasSets = false;
+		for (int v = 0; v < g.numNodes && !hasSets; v++) {
+			hasSets = g.setNumber[v] != -1;
+		}
+		int flags = (hasSets ? HAS_SETS : 0) | (coloring != null ? HAS_COLORS : 0);
+		long ints = HEADER_INTS + (g.numNodes + 1L) + g.neighbors.length + g.numNodes
+				+ (hasSets ? g.numNodes : 0) + (coloring != null ? g.numNodes : 0);
+		if (ints * 4 > Integer.MAX_VALUE)
+			throw new IOException("Graph is too large for a single mapping");
+
+		RandomAccessFile raf = new RandomAccessFile(file, "rw");
+		try {
+			raf.setLength(0);
+			FileChannel channel = raf.getChannel();
+			MappedByteBuffer map = channel.map(FileChannel.MapMode.READ_WRITE, 0, ints * 4);
+			IntBuffer out = map.order(ByteOrder.LITTLE_ENDIAN).asIntBuffer();
+			out.put(new int[] {MAGIC, VERSION, g.numNodes, g.neighbors.length, flags, 0, 0, 0});
+			out.put(g.offsets);
+			out.put(g.neighbors);
+			out.put(g.ids);
+			if (hasSets)
+				out.put(g.setNumber);
+			if (coloring != null)
+				out.put(coloring.color);
+			map.force();
+		} finally {
+			raf.close();
+		}
+	}
+
+	/**
+	 * Reads a graph written by write. Each array is copied out of the
+	 * mapping in one bulk transfer, so the graph does not depend on the
+	 * file once read returns.
+	 *
+	 * @param file
+	 * @return
+	 * @throws IOException if file is not a graph file, is cut short, or
+	 * holds offsets or neighbors that don't form a graph
+	 */
+	public static GraphFile read(File file) throws IOException {
+		RandomAccessFile raf = new RandomAccessFile(file, "r");
+		try {
+			FileChannel channel = raf.getChannel();
+			long size = channel.size();
+			if (size < HEADER_INTS * 4 || size > Integer.MAX_VALUE)
+				throw new IOException(file + " is not a graph file");
+			MappedByteBuffer map = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+			IntBuffer in = map.order(ByteOrder.LITTLE_ENDIAN).asIntBuffer();
+
+			int[] header = new int[HEADER_INTS];
+			in.get(header);
+			if (header[0] != MAGIC || header[1] != VERSION)
+				throw new IOException(file + " is not a version " + VERSION + " graph file");
+			int numNodes = header[2];
+			int numNeighbors = header[3];
+			int flags = header[4];
+			long expected = HEADER_INTS + (numNodes + 1L) + numNeighbors + numNodes
+					+ ((flags & HAS_SETS) != 0 ? numNodes : 0)
+					+ ((flags & HAS_COLORS) != 0 ? numNodes : 0);
+			if (numNodes < 0 || numNeighbors < 0 || expected * 4 != size)
+				throw new IOException(file + " has the wrong length for its header");
+
+			int[] offsets = new int[numNodes + 1];
+			int[] neighbors = new int[numNeighbors];
+			int[] ids = new int[numNodes];
+			int[] setNumber = new int[numNodes];
+			in.get(offsets);
+			in.get(neighbors);
+			in.get(ids);
+			if ((flags & HAS_SETS) != 0) {
+				in.get(setNumber);
+			} else {
+				for (int v = 0; v < numNodes; v++) {
+					setNumber[v] = -1;
+				}
+			}
+			Coloring coloring = null;
+			if ((flags & HAS_COLORS) != 0) {
+				coloring = new Coloring(numNodes);
+				in.get(coloring.color);
+			}
+			check(file, offsets, neighbors);
+			return new GraphFile(new CompactGraph(offsets, neighbors, ids, setNumber), coloring);
+		} finally {
+			raf.close();
+		}
+	}
+
+	// the colorers index with these without any checks, so a bad file has
+	// to be caught here rather than as an exception deep in a heuristic
+	private static void check(File file, int[] offsets, int[] neighbors) throws IOException {
+		int numNodes = offsets.length - 1;
+		if (offsets[0] != 0 || offsets[numNodes] != neighbors.length)
+			throw new IOException(file + " has offsets that don't cover its neighbors");
+		for (int v = 0; v < numNodes; v++) {
+			if (offsets[v + 1] < offsets[v])
+				throw new IOException(file + " has decreasing offsets at vertex " + v);
+		}
+		for (int i = 0; i < neighbors.length; i++) {
+			if (neighbors[i] < 0 || neighbors[i] >= numNodes)
+				throw new IOException(file + " has neighbor " + neighbors[i] + " out of range");
+		}
+	}
+}
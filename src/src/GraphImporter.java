@@ -0,0 +1,338 @@
+package src;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * Reads a graph from a DIMACS .col file or a plain edge list into a
+ * CompactGraph.
+ *
+ * DIMACS files have a "p edge <nodes> <edges>" line and one "e <u> <v>"
+ * line per edge, with vertices numbered from 1. Edge lists have one
+ * "<u> <v>" pair per line, with vertices numbered from 0 and as many
+ * vertices as the highest number plus one. Lines starting with c, % or #
+ * are comments. Self loops are dropped, and edges listed more than once
+ * (in either direction) are only kept once.
+ *
+ * The file is cut into chunks of CHUNK_SIZE bytes at line ends, and every
+ * chunk is mapped and parsed by its own task into a flat int buffer of
+ * edge end points. The CSR arrays are then built in two passes over those
+ * buffers, counting degrees and then filling in the neighbours, so no
+ * object is created per edge. As in the GraphCreator graphs, the vertices
+ * are numbered by decreasing degree; ids holds the number each vertex had
+ * in the file.
+ */
+public class GraphImporter {
+
+	public static final int CHUNK_SIZE = 1 << 23;
+	private static final int MAX_LINE = 1 << 12; // a line may run this far past its chunk
+
+	public final CompactGraph graph;
+	public final long edgesRead; // edge lines in the file, duplicates included
+	public final long duration; // nanoseconds taken by read
+
+	private GraphImporter(CompactGraph graph, long edgesRead, long duration) {
+		this.graph = graph;
+		this.edgesRead = edgesRead;
+		this.duration = duration;
+	}
+
+	/**
+	 * Returns the number of edge lines read per second
+	 *
+	 * @return
+	 */
+	public double edgesPerSecond() {
+		return edgesRead / (duration / 1e9);
+	}
+
+	/**
+	 * Reads file, parsing its chunks on executor.
+	 *
+	 * @param file - a DIMACS .col file or an edge list
+	 * @param executor - runs the parsing tasks; it is not shut down
+	 * @return
+	 * @throws IOException if file can't be read or has a malformed line
+	 * @throws InterruptedException if interrupted while waiting for a task
+	 */
+	public static GraphImporter read(File file, ExecutorService executor)
+			throws IOException, InterruptedException {
+		return read(file, executor, CHUNK_SIZE);
+	}
+
+	// same as read above, with chunks of chunkSize bytes
+	static GraphImporter read(File file, ExecutorService executor, int chunkSize)
+			throws IOException, InterruptedException {
+		long startTime = System.nanoTime();
+		List<Future<EdgeBuffer>> chunks = new ArrayList<Future<EdgeBuffer>>();
+		long size = file.length();
+		for (long start = 0; start < size; start += chunkSize) {
+			chunks.add(executor.submit(new ChunkParser(file, start, Math.min(size, start + chunkSize))));
+		}
+		List<EdgeBuffer> buffers = new ArrayList<EdgeBuffer>(chunks.size());
+		for (Future<EdgeBuffer> chunk : chunks) {
+			buffers.add(get(chunk));
+		}
+
+		// DIMACS numbers vertices from 1, edge lists from 0
+		int declaredNodes = -1;
+		int maxId = -1;
+		long edgesRead = 0;
+		for (EdgeBuffer buffer : buffers) {
+			if (buffer.declaredNodes >= 0)
+				declaredNodes = buffer.declaredNodes;
+			maxId = Math.max(maxId, buffer.maxId);
+			edgesRead += buffer.size / 2;
+		}
+		int base = declaredNodes >= 0 ? 1 : 0;
+		int numNodes = declaredNodes >= 0 ? declaredNodes : maxId + 1;
+		if (maxId >= numNodes + base)
+			throw new IOException(file + " has vertex " + maxId + " but declares " + numNodes);
+		for (EdgeBuffer buffer : buffers) {
+			if (buffer.minId < base)
+				throw new IOException(file + " has vertex " + buffer.minId + ", DIMACS vertices start at 1");
+		}
+
+		// first pass: count degrees
+		int[] offsets = new int[numNodes + 1];
+		for (EdgeBuffer buffer : buffers) {
+			int[] e = buffer.ends;
+			for (int i = 0; i < buffer.size; i += 2) {
+				if (e[i] != e[i + 1]) {
+					offsets[e[i] - base + 1]++;
+					offsets[e[i + 1] - base + 1]++;
+				}
+			}
+		}
+		for (int v = 0; v < numNodes; v++) {
+			offsets[v + 1] += offsets[v];
+		}
+
+		// second pass: fill in the neighbours
+		int[] neighbors = new int[offsets[numNodes]];
+		int[] fill = Arrays.copyOf(offsets, numNodes);
+		for (EdgeBuffer buffer : buffers) {
+			int[] e = buffer.ends;
+			for (int i = 0; i < buffer.size; i += 2) {
+				int a = e[i] - base;
+				int b = e[i + 1] - base;
+				if (a != b) {
+					neighbors[fill[a]++] = b;
+					neighbors[fill[b]++] = a;
+				}
+			}
+			buffer.ends = null; // done with it
+		}
+
+		// sort each list to drop repeated edges, keeping the new degree in fill
+		for (int v = 0; v < numNodes; v++) {
+			int from = offsets[v];
+			int to = offsets[v + 1];
+			Arrays.sort(neighbors, from, to);
+			int end = from;
+			for (int i = from; i < to; i++) {
+				if (i == from || neighbors[i] != neighbors[i - 1])
+					neighbors[end++] = neighbors[i];
+			}
+			fill[v] = end - from;
+		}
+
+		CompactGraph graph = byDecreasingDegree(numNodes, offsets, neighbors, fill, base);
+		return new GraphImporter(graph, edgesRead, System.nanoTime() - startTime);
+	}
+
+	/*
+	 * Renumbers the vertices by decreasing degree, ties in file order, with
+	 * a counting sort on the degrees. The list of v starts at offsets[v] and
+	 * has degree[v] entries.
+	 */
+	private static CompactGraph byDecreasingDegree(int numNodes, int[] offsets,
+			int[] neighbors, int[] degree, int base) {
+		int maxDegree = 0;
+		for (int v = 0; v < numNodes; v++) {
+			maxDegree = Math.max(maxDegree, degree[v]);
+		}
+		int[] start = new int[maxDegree + 2];
+		for (int v = 0; v < numNodes; v++) {
+			start[maxDegree - degree[v] + 1]++;
+		}
+		for (int d = 0; d <= maxDegree; d++) {
+			start[d + 1] += start[d];
+		}
+		int[] order = new int[numNodes]; // order[new number] = old number
+		int[] rank = new int[numNodes]; // rank[old number] = new number
+		for (int v = 0; v < numNodes; v++) {
+			int r = start[maxDegree - degree[v]]++;
+			order[r] = v;
+			rank[v] = r;
+		}
+
+		int[] newOffsets = new int[numNodes + 1];
+		int[] ids = new int[numNodes];
+		int[] setNumber = new int[numNodes];
+		for (int r = 0; r < numNodes; r++) {
+			newOffsets[r + 1] = newOffsets[r] + degree[order[r]];
+			ids[r] = order[r] + base;
+			setNumber[r] = -1;
+		}
+		int[] newNeighbors = new int[newOffsets[numNodes]];
+		for (int r = 0; r < numNodes; r++) {
+			int from = offsets[order[r]];
+			int pos = newOffsets[r];
+			for (int i = 0; i < degree[order[r]]; i++) {
+				newNeighbors[pos++] = rank[neighbors[from + i]];
+			}
+		}
+		return new CompactGraph(newOffsets, newNeighbors, ids, setNumber);
+	}
+
+	/*
+	 * End points of the edges in one chunk, two ints per edge, along with
+	 * what the chunk says about the vertex numbers
+	 */
+	private static class EdgeBuffer {
+		int[] ends = new int[1024];
+		int size = 0;
+		int minId = Integer.MAX_VALUE;
+		int maxId = -1;
+		int declaredNodes = -1; // from a DIMACS p line, -1 if the chunk has none
+
+		void add(int a, int b) {
+			if (size + 2 > ends.length)
+				ends = Arrays.copyOf(ends, 2 * ends.length);
+			ends[size++] = a;
+			ends[size++] = b;
+			minId = Math.min(minId, Math.min(a, b));
+			maxId = Math.max(maxId, Math.max(a, b));
+		}
+	}
+
+	/*
+	 * Parses the lines that start in [start, end) of the file. A line that
+	 * starts before start belongs to the chunk before, and the last line
+	 * may run past end.
+	 */
+	private static class ChunkParser implements Callable<EdgeBuffer> {
+		private final File file;
+		private final long start;
+		private final long end;
+		private MappedByteBuffer in;
+		private int pos;
+		private int limit;
+		private boolean truncated; // the mapping stops before the end of the file
+
+		ChunkParser(File file, long start, long end) {
+			this.file = file;
+			this.start = start;
+			this.end = end;
+		}
+
+		public EdgeBuffer call() throws IOException {
+			EdgeBuffer buffer = new EdgeBuffer();
+			RandomAccessFile raf = new RandomAccessFile(file, "r");
+			try {
+				// map one byte before start to see whether a line starts at start
+				long from = Math.max(0, start - 1);
+				long to = Math.min(raf.length(), end + MAX_LINE);
+				in = raf.getChannel().map(FileChannel.MapMode.READ_ONLY, from, to - from);
+				truncated = to < raf.length();
+			} finally {
+				raf.close();
+			}
+			limit = in.limit();
+			pos = 0;
+			if (start > 0) {
+				while (pos < limit && in.get(pos) != '\n') {
+					pos++;
+				}
+				pos++;
+			}
+			int chunkEnd = (int)(end - Math.max(0, start - 1));
+			while (pos < chunkEnd && pos < limit) {
+				int lineStart = pos;
+				skipBlanks();
+				if (pos >= limit)
+					break;
+				int c = in.get(pos);
+				if (c == 'e' || (c >= '0' && c <= '9')) {
+					if (c == 'e')
+						pos++;
+					int a = readInt(lineStart);
+					int b = readInt(lineStart);
+					buffer.add(a, b);
+				} else if (c == 'p') {
+					pos++;
+					skipBlanks();
+					while (pos < limit && in.get(pos) > ' ') {
+						pos++; // the format name, "edge" or "col"
+					}
+					buffer.declaredNodes = readInt(lineStart);
+				} else if (c != 'c' && c != '%' && c != '#' && c != '\n' && c != '\r') {
+					throw malformed(lineStart);
+				}
+				while (pos < limit && in.get(pos) != '\n') {
+					pos++;
+				}
+				if (pos >= limit && truncated)
+					throw new IOException(file + " has a line longer than " + MAX_LINE + " bytes");
+				pos++;
+			}
+			return buffer;
+		}
+
+		private void skipBlanks() {
+			while (pos < limit && (in.get(pos) == ' ' || in.get(pos) == '\t')) {
+				pos++;
+			}
+		}
+
+		private int readInt(int lineStart) throws IOException {
+			skipBlanks();
+			long value = 0;
+			int digits = 0;
+			while (pos < limit) {
+				int c = in.get(pos);
+				if (c < '0' || c > '9')
+					break;
+				value = value * 10 + (c - '0');
+				if (value > Integer.MAX_VALUE)
+					throw malformed(lineStart);
+				digits++;
+				pos++;
+			}
+			if (digits == 0)
+				throw malformed(lineStart);
+			return (int)value;
+		}
+
+		private IOException malformed(int lineStart) {
+			long offset = Math.max(0, start - 1) + lineStart;
+			return new IOException(file + " has a malformed line at byte " + offset);
+		}
+	}
+
+	// rethrows the IOException or unchecked exception a task failed with
+	private static <T> T get(Future<T> future) throws IOException, InterruptedException {
+		try {
+			return future.get();
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof IOException)
+				throw (IOException) e.getCause();
+			if (e.getCause() instanceof Error)
+				throw (Error) e.getCause();
+			if (e.getCause() instanceof RuntimeException)
+				throw (RuntimeException) e.getCause();
+			throw new RuntimeException(e.getCause());
+		}
+	}
+}
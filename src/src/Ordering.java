@@ -0,0 +1,204 @@
+package src;
+
+/**
+ * Vertex orderings for greedy coloring, each worked out in O(n + m) with
+ * bucket queues instead of sorting with a comparator. An ordering is an
+ * int[] holding every vertex of the graph once, in the order to color
+ * them.
+ */
+public class Ordering {
+
+	public enum Type {
+		LARGEST_FIRST, SMALLEST_LAST, INCIDENCE_DEGREE;
+
+		public int[] order(CompactGraph g) {
+			switch (this) {
+			case LARGEST_FIRST:
+				return largestFirst(g);
+			case SMALLEST_LAST:
+				return smallestLast(g);
+			default:
+				return incidenceDegree(g);
+			}
+		}
+	}
+
+	/**
+	 * Returns the vertices by decreasing degree, equal degrees in vertex
+	 * order, using a counting sort on the degrees. The generators and the
+	 * importers hand out graphs in this order already; it is for graphs
+	 * built some other way.
+	 *
+	 * @param g
+	 * @return
+	 */
+	public static int[] largestFirst(CompactGraph g) {
+		int maxDegree = g.maxDegree();
+		// start[maxDegree - d] is where the vertices of degree d go
+		int[] start = new int[maxDegree + 2];
+		for (int v = 0; v < g.numNodes; v++) {
+			start[maxDegree - g.degree[v] + 1]++;
+		}
+		for (int d = 0; d <= maxDegree; d++) {
+			start[d + 1] += start[d];
+		}
+		int[] order = new int[g.numNodes];
+		for (int v = 0; v < g.numNodes; v++) {
+			order[start[maxDegree - g.degree[v]]++] = v;
+		}
+		return order;
+	}
+
+	/**
+	 * Returns the smallest-last (degeneracy) ordering: the vertex of
+	 * smallest degree is taken out of the graph, over and over, and the
+	 * vertices are colored in the reverse of that order. Every vertex then
+	 * has at most degeneracy(g) neighbors colored before it, so first-fit
+	 * uses at most degeneracy(g) + 1 colors.
+	 *
+	 * @param g
+	 * @return
+	 */
+	public static int[] smallestLast(CompactGraph g) {
+		Buckets buckets = new Buckets(g.numNodes, g.maxDegree());
+		for (int v = g.numNodes - 1; v >= 0; v--) {
+			buckets.add(v, g.degree[v]);
+		}
+		boolean[] removed = new boolean[g.numNodes];
+		int[] order = new int[g.numNodes];
+		int min = 0;
+		for (int j = g.numNodes - 1; j >= 0; j--) {
+			while (buckets.first(min) < 0) {
+				min++;
+			}
+			int v = buckets.first(min);
+			buckets.remove(v);
+			removed[v] = true;
+			order[j] = v;
+			for (int i = g.offsets[v]; i < g.offsets[v + 1]; i++) {
+				int n = g.neighbors[i];
+				if (!removed[n]) {
+					buckets.move(n, buckets.key(n) - 1);
+				}
+			}
+			// a neighbor may now be one below the old minimum
+			min = Math.max(0, min - 1);
+		}
+		return order;
+	}
+
+	/**
+	 * Returns the largest number of neighbors any vertex still has when it
+	 * is taken out for the smallest-last ordering
+	 *
+	 * @param g
+	 * @return
+	 */
+	public static int degeneracy(CompactGraph g) {
+		int[] order = smallestLast(g);
+		int[] position = new int[g.numNodes];
+		for (int j = 0; j < order.length; j++) {
+			position[order[j]] = j;
+		}
+		int degeneracy = 0;
+		for (int v = 0; v < g.numNodes; v++) {
+			int before = 0;
+			for (int i = g.offsets[v]; i < g.offsets[v + 1]; i++) {
+				if (position[g.neighbors[i]] < position[v])
+					before++;
+			}
+			degeneracy = Math.max(degeneracy, before);
+		}
+		return degeneracy;
+	}
+
+	/**
+	 * Returns the incidence degree ordering: next is always the vertex with
+	 * the most neighbors already in the ordering, the rule analyzeNumColored
+	 * colors by. The first vertex is vertex 0, and ties go to the vertex
+	 * that reached the count last.
+	 *
+	 * @param g
+	 * @return
+	 */
+	public static int[] incidenceDegree(CompactGraph g) {
+		Buckets buckets = new Buckets(g.numNodes, g.maxDegree());
+		for (int v = g.numNodes - 1; v >= 0; v--) {
+			buckets.add(v, 0);
+		}
+		boolean[] placed = new boolean[g.numNodes];
+		int[] order = new int[g.numNodes];
+		int max = 0;
+		for (int j = 0; j < g.numNodes; j++) {
+			while (buckets.first(max) < 0) {
+				max--;
+			}
+			int v = buckets.first(max);
+			buckets.remove(v);
+			placed[v] = true;
+			order[j] = v;
+			for (int i = g.offsets[v]; i < g.offsets[v + 1]; i++) {
+				int n = g.neighbors[i];
+				if (!placed[n]) {
+					buckets.move(n, buckets.key(n) + 1);
+					max = Math.max(max, buckets.key(n));
+				}
+			}
+		}
+		return order;
+	}
+
+	/*
+	 * Vertices kept in one doubly linked list per key, so that finding the
+	 * first vertex of a key and moving a vertex to another key take O(1).
+	 * A vertex is added at the front of its list.
+	 */
+	private static class Buckets {
+		private final int[] head; // first vertex of every key, -1 if none
+		private final int[] next;
+		private final int[] prev;
+		private final int[] key;
+
+		Buckets(int numNodes, int maxKey) {
+			head = new int[maxKey + 1];
+			next = new int[numNodes];
+			prev = new int[numNodes];
+			key = new int[numNodes];
+			for (int k = 0; k <= maxKey; k++) {
+				head[k] = -1;
+			}
+		}
+
+		int first(int k) {
+			return head[k];
+		}
+
+		int key(int v) {
+			return key[v];
+		}
+
+		void add(int v, int k) {
+			key[v] = k;
+			prev[v] = -1;
+			next[v] = head[k];
+			if (head[k] >= 0)
+				prev[head[k]] = v;
+			head[k] = v;
+		}
+
+		void remove(int v) {
+			if (prev[v] >= 0) {
+				next[prev[v]] = next[v];
+			} else {
+				head[key[v]] = next[v];
+			}
+			if (next[v] >= 0)
+				prev[next[v]] = prev[v];
+		}
+
+		void move(int v, int k) {
+			remove(v);
+			add(v, k);
+		}
+	}
+}
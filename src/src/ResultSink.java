@@ -0,0 +1,307 @@
+package src;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Writes the CSV rows of a sweep to a file from a background thread, so
+ * the sweep never waits on the disk. Rows are handed over already encoded
+ * as bytes (see Row) through a bounded queue; when the queue is full, the
+ * sweep waits for the writer to catch up instead of piling up rows.
+ *
+ * Every checkpointRows rows the file is flushed and forced to disk, so at
+ * most that many rows are lost if the JVM dies. The first column of every
+ * row must be its TestID, and rows must be written in TestID order: a sink
+ * opened with resume set then carries on after the last complete row in
+ * the file, and nextTestId() tells the sweep where that is.
+ */
+public class ResultSink {
+
+	private static final byte[] END = new byte[0]; // tells the writer thread to stop
+
+	private final FileOutputStream out;
+	private final BlockingQueue<byte[]> queue;
+	private final int checkpointRows;
+	private final Thread writer;
+	private final int nextTestId;
+	private volatile IOException failure;
+
+	/**
+	 * Opens file for writing rows.
+	 *
+	 * @param file - the CSV file
+	 * @param header - the first line of the file, without the newline
+	 * @param resume - if true and file already has rows under the same
+	 * header, keep them and append after them; otherwise file is replaced
+	 * @param queueCapacity - number of rows waiting to be written before
+	 * write() blocks
+	 * @param checkpointRows - number of rows between forcing the file to disk
+	 * @throws IOException if file can't be opened, or if resuming a file
+	 * with a different header
+	 */
+	public ResultSink(File file, String header, boolean resume, int queueCapacity,
+			int checkpointRows) throws IOException {
+		this.checkpointRows = checkpointRows;
+		queue = new ArrayBlockingQueue<byte[]>(queueCapacity);
+
+		if (resume && file.exists() && file.length() > 0) {
+			nextTestId = recover(file, header);
+			out = new FileOutputStream(file, true);
+		} else {
+			nextTestId = 0;
+			out = new FileOutputStream(file);
+			out.write((header + "\n").getBytes("US-ASCII"));
+			out.getChannel().force(false);
+		}
+
+		writer = new Thread(new Runnable() {
+			public void run() {
+				drain();
+			}
+		}, "ResultSink writer");
+		writer.setDaemon(true);
+		writer.start();
+	}
+
+	/**
+	 * Returns the TestID of the first row not in the file when it was
+	 * opened, 0 for a new file
+	 *
+	 * @return
+	 */
+	public int nextTestId() {
+		return nextTestId;
+	}
+
+	/**
+	 * Queues a finished row for writing, waiting if the queue is full
+	 *
+	 * @param row
+	 * @throws IOException if the writer thread has failed
+	 * @throws InterruptedException
+	 */
+	public void write(Row row) throws IOException, InterruptedException {
+		checkFailure();
+		queue.put(row.toBytes());
+	}
+
+	/**
+	 * Writes out every queued row, forces the file to disk and closes it
+	 *
+	 * @throws IOException if any write failed
+	 * @throws InterruptedException
+	 */
+	public void close() throws IOException, InterruptedException {
+		queue.put(END);
+		writer.join();
+		out.close();
+		checkFailure();
+	}
+
+	private void checkFailure() throws IOException {
+		if (failure != null)
+			throw new IOException("Writing results failed", failure);
+	}
+
+	// body of the writer thread: write rows in batches until END comes through
+	private void drain() {
+		List<byte[]> batch = new ArrayList<byte[]>();
+		byte[] buffer = new byte[1 << 16];
+		int sinceCheckpoint = 0;
+		boolean done = false;
+		try {
+			while (true) {
+				batch.add(queue.take());
+				queue.drainTo(batch);
+				int used = 0;
+				for (byte[] row : batch) {
+					if (row == END) {
+						done = true;
+						break;
+					}
+					if (used + row.length > buffer.length) {
+						out.write(buffer, 0, used);
+						used = 0;
+					}
+					if (row.length > buffer.length) {
+						out.write(row);
+					} else {
+						System.arraycopy(row, 0, buffer, used, row.length);
+						used += row.length;
+					}
+					sinceCheckpoint++;
+				}
+				out.write(buffer, 0, used);
+				batch.clear();
+				if (done || sinceCheckpoint >= checkpointRows) {
+					out.getChannel().force(false);
+					sinceCheckpoint = 0;
+				}
+				if (done)
+					return;
+			}
+		} catch (IOException e) {
+			failure = e;
+			// keep taking rows so the sweep is not blocked before it notices
+			try {
+				while (!done && queue.take() != END) {
+				}
+			} catch (InterruptedException e2) {
+				Thread.currentThread().interrupt();
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/*
+	 * Cuts off a row that was only partly written when the last run died,
+	 * and returns the TestID after the last complete row
+	 */
+	private static int recover(File file, String header) throws IOException {
+		RandomAccessFile raf = new RandomAccessFile(file, "rw");
+		try {
+			String firstLine = raf.readLine();
+			if (firstLine == null || !firstLine.equals(header))
+				throw new IOException(file + " has different columns, can't resume it");
+
+			long end = raf.length();
+			while (end > 0 && byteAt(raf, end - 1) != '\n') {
+				end--;
+			}
+			raf.setLength(end);
+
+			long start = end - 1;
+			while (start > 0 && byteAt(raf, start - 1) != '\n') {
+				start--;
+			}
+			if (start == 0)
+				return 0; // only the header is there
+			byte[] line = new byte[(int)(end - 1 - start)];
+			raf.seek(start);
+			raf.readFully(line);
+			String lastRow = new String(line, "US-ASCII");
+			int comma = lastRow.indexOf(',');
+			try {
+				return Integer.parseInt((comma < 0 ? lastRow : lastRow.substring(0, comma)).trim()) + 1;
+			} catch (NumberFormatException e) {
+				throw new IOException(file + " ends with a row without a TestID, can't resume it", e);
+			}
+		} finally {
+			raf.close();
+		}
+	}
+
+	private static int byteAt(RandomAccessFile raf, long pos) throws IOException {
+		raf.seek(pos);
+		return raf.read();
+	}
+
+	/**
+	 * A CSV row being built straight into bytes. Numbers are written digit
+	 * by digit without going through a String, doubles in fixed point with
+	 * one to DECIMALS decimals and no trailing zeros after the first (e.g.
+	 * 0.3, 1.0, 12.345678); fields are separated by commas and the row ends with a
+	 * newline once toBytes() is called. A Row can be reused for the next
+	 * row after toBytes().
+	 */
+	public static class Row {
+		public static final int DECIMALS = 6;
+		private static final long SCALE = 1000000L; // 10^DECIMALS
+		// doubles from here on, and NaN and the infinities, are written by String.valueOf
+		private static final double MAX_FIXED = 1e12;
+
+		private byte[] bytes = new byte[256];
+		private int length = 0;
+		private final byte[] digits = new byte[20];
+
+		public Row add(long value) {
+			separate();
+			putLong(value);
+			return this;
+		}
+
+		public Row add(double value) {
+			if (!(Math.abs(value) < MAX_FIXED)) {
+				return add(String.valueOf(value));
+			}
+			separate();
+			long scaled = Math.round(value * SCALE);
+			if (scaled < 0) {
+				put('-');
+				scaled = -scaled;
+			}
+			putLong(scaled / SCALE);
+			put('.');
+			long fraction = scaled % SCALE;
+			int n = DECIMALS;
+			while (n > 1 && fraction % 10 == 0) {
+				fraction /= 10;
+				n--;
+			}
+			for (int i = n - 1; i >= 0; i--) {
+				digits[i] = (byte)('0' + fraction % 10);
+				fraction /= 10;
+			}
+			for (int i = 0; i < n; i++) {
+				put(digits[i]);
+			}
+			return this;
+		}
+
+		public Row add(boolean value) {
+			return add(value ? "true" : "false");
+		}
+
+		// text must be plain ASCII without commas
+		public Row add(String text) {
+			separate();
+			for (int i = 0; i < text.length(); i++) {
+				put(text.charAt(i));
+			}
+			return this;
+		}
+
+		// returns the finished row, newline included, and clears this Row
+		public byte[] toBytes() {
+			put('\n');
+			byte[] row = Arrays.copyOf(bytes, length);
+			length = 0;
+			return row;
+		}
+
+		private void putLong(long value) {
+			if (value < 0) {
+				put('-');
+			} else {
+				value = -value; // work with negatives so Long.MIN_VALUE fits
+			}
+			int n = 0;
+			do {
+				digits[n++] = (byte)('0' - (value % 10));
+				value /= 10;
+			} while (value != 0);
+			while (n > 0) {
+				put(digits[--n]);
+			}
+		}
+
+		private void separate() {
+			if (length > 0)
+				put(',');
+		}
+
+		private void put(int b) {
+			if (length == bytes.length)
+				bytes = Arrays.copyOf(bytes, 2 * length);
+			bytes[length++] = (byte)b;
+		}
+	}
+}
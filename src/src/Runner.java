@@ -1,16 +1,13 @@
 package src;
 
-import java.io.BufferedWriter;
 import java.io.File;
-import java.io.FileWriter;
 import java.io.IOException;
-
-import src.Analysis.StatTracker;
-import src.BasicGraph.Node;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
 
 public class Runner {
 	
-	public static void main(String[] args) throws IOException {
+	public static void main(String[] args) throws IOException, InterruptedException {
 		
 		/**
 		 * TODO: Create a function that modulates the different components and fills
@@ -32,8 +29,59 @@ public class Runner {
 		// Number of how many tests to average together
 		final int mean_count = 10;
 		
+		// Number of threads running tests at the same time, --threads N
+		int threads = Runtime.getRuntime().availableProcessors();
+		// Number of threads each parallel test colors a single graph with, --coloring-threads N
+		int coloringThreads = Runtime.getRuntime().availableProcessors();
+		// Number of untimed runs of each test before the timed one, --warmup N
+		int warmup = 0;
+		// Where the results go, --out FILE
+		String out = "../../../Desktop/Export.csv";
+		// Carry on after the last row already in the results file, --resume
+		boolean resume = false;
+		// Also find the chromatic number of graphs of up to this many nodes, --exact N
+		int exactMaxNodes = 0;
+		// The seed every graph is derived from, --seed N; a resumed sweep needs the seed it started with
+		Long seed = null;
+		for (int i = 0; i < args.length; i++) {
+			if (args[i].equals("--threads") && i + 1 < args.length) {
+				threads = Integer.parseInt(args[++i]);
+			} else if (args[i].equals("--coloring-threads") && i + 1 < args.length) {
+				coloringThreads = Integer.parseInt(args[++i]);
+			} else if (args[i].equals("--warmup") && i + 1 < args.length) {
+				warmup = Integer.parseInt(args[++i]);
+			} else if (args[i].equals("--out") && i + 1 < args.length) {
+				out = args[++i];
+			} else if (args[i].equals("--exact") && i + 1 < args.length) {
+				exactMaxNodes = Integer.parseInt(args[++i]);
+			} else if (args[i].equals("--seed") && i + 1 < args.length) {
+				seed = Long.parseLong(args[++i]);
+			} else if (args[i].equals("--resume")) {
+				resume = true;
+			} else {
+				throw new IllegalArgumentException("Unknown argument " + args[i]);
+			}
+		}
+		if (threads < 1) {
+			throw new IllegalArgumentException("--threads must be at least 1");
+		}
+		if (coloringThreads < 1) {
+			throw new IllegalArgumentException("--coloring-threads must be at least 1");
+		}
+		if (exactMaxNodes < 0) {
+			throw new IllegalArgumentException("--exact can not be negative");
+		}
+		if (warmup < 0) {
+			throw new IllegalArgumentException("--warmup can not be negative");
+		}
+		// without the seed the resumed rows would come from other graphs than the ones before
+		if (resume && seed == null) {
+			throw new IllegalArgumentException("--resume needs the --seed the results were started with");
+		}
+		if (seed == null) {
+			seed = new Random().nextLong();
+		}
 
-		BufferedWriter wr = new BufferedWriter(new FileWriter("../../../Desktop/Export.csv"));
 		/**
 		 * TestID = autonum
 		 * K = k colorability of the graph
@@ -44,62 +92,42 @@ public class Runner {
 		 * K-Correctness = a measure for how much, positive or negative of K the test ran (colors used - k-value)
 		 * Duration = the total time required to run the test
 		 * Test_Type = the type of test run on the sample
+		 * Runs = the number of timed runs the following columns are computed from
+		 * Mean, Median, P90, P99, Min, Max = statistics of the duration of a single run
+		 * StdDev = sample standard deviation of the duration of a single run
+		 * CI95 = half width of the 95% confidence interval of the mean duration
+		 * Seed = seed of the configuration; Sweep.graph makes the graph of any repetition again from it
+		 * Components = mean number of connected components of the graphs
+		 * Connected = boolean if every one of the graphs was connected
+		 * With --exact only, empty for graphs with more nodes than given:
+		 * Chromatic = mean number of colors ExactColoring found, the chromatic number where optimal
+		 * Optimal = boolean if ExactColoring proved every one of those optimal
+		 * Exact-Correctness = how many more colors the test used than ExactColoring, on average
 		 */
-		wr.append("TestID, K, Node_Num, Density, MaxDegree, Distribution, Is-Colored-Correctly, K-Correctness, Duration, Test_Type");
-		wr.append("\n");
-		int overall_counter = 0;
+		String header = "TestID, K, Node_Num, Density, MaxDegree, Distribution, Is-Colored-Correctly, K-Correctness, Duration, Test_Type, "
+				+ "Runs, Mean, Median, P90, P99, Min, Max, StdDev, CI95, Seed, Components, Connected";
+		if (exactMaxNodes > 0) {
+			header += ", Chromatic, Optimal, Exact-Correctness";
+		}
+		// rows are written from a background thread and forced to disk every 100 rows
+		ResultSink sink = new ResultSink(new File(out), header, resume, 1024, 100);
+		if (sink.nextTestId() > 0) {
+			System.out.println("Resuming at TestID " + sink.nextTestId());
+		}
 		// Doesn't handle the max degree at all
-		for (int k : k_arr) {
-			for (int node_num : node_arr) {
-				node_num *= k;
-				for (double density = start_density; density <= max_density; density += step_density) {
-					int[] set_sizes = new int[k];
-					int mod = node_num % k; // Get the remainder of the nodes being placed
-					int common_val = node_num / k; // Allow the rounding to take place, we will add it later
-					// Create the sets by spreading the remainder out along the rounded down common value
-					int counter = 0;
-					for (; counter < mod; counter++) {
-						set_sizes[counter] = common_val + 1;
-					}
-					for (; counter < k; counter++) {
-						set_sizes[counter] = common_val;
-					}
-					
-					// Section for modulating max_degree
-					for (double maxD = start_degree; maxD <= max_degree; maxD += step_degree) {
-						// calculate the degree, based off the maximum of 
-						int max_deg = (Math.round(((float)k - 1f) * ((float)node_num/(float)k)) + 1);
-						max_deg = (int)Math.round(maxD * (double)max_deg);
-						for (Analysis.StatTestFunction func : Analysis.functions) {
-				        	StatTracker stats = new StatTracker(0, 0, true);
-				        	for (int c = 0; c < mean_count; c++) {
-				        		// For now, just use a uniform distribution on the set_sizes
-						        BasicGraph graph = GraphCreator.createRandomConnectedGraphSimplified(node_num, k, density, max_deg, set_sizes);
-						        System.out.println("Running Test " + func.toString());
-					        	stats.addTracker(func.runTest(graph));
-					        	// Because more and more RAM will be used, it may be a good idea to reverse this
-					        	graph.reset();
-				        	}
-				        	
-				        	wr.append(
-				        			String.valueOf(overall_counter++) + "," +	// TestID
-		        					String.valueOf(k) + "," +	// K
-		        					String.valueOf(node_num) + "," +	// Node_Num
-		        					String.valueOf(density) + "," +	// Density
-		        					String.valueOf((1.0/maxD)) + "," +	// MaxDegree
-		        					"Uniform" + "," +	// Distribution
-		        					(stats.my_correctness ? "true" : "false") + "," +	// Is-Colored-Correctly
-		        					String.valueOf((stats.my_color_count/mean_count) - k) + "," +	// K-Correctness
-		        					String.valueOf((stats.my_duration/mean_count)) + "," +	// Duration
-		        					func.toString() // Test_Type
-		        			);
-				        	wr.append("\n");
-				        }
-					}
-				}
-			}
+		Sweep sweep = new Sweep(k_arr, node_arr, start_density, max_density, step_density,
+				start_degree, max_degree, step_degree, mean_count, warmup, seed);
+		sweep.exactMaxNodes = exactMaxNodes;
+		System.out.println("Seed " + sweep.seed);
+		ForkJoinPool pool = new ForkJoinPool(threads);
+		ForkJoinPool coloringPool = new ForkJoinPool(coloringThreads);
+		try {
+			sweep.run(pool, coloringPool, sink);
+		} finally {
+			pool.shutdownNow();
+			coloringPool.shutdownNow();
 		}
-		wr.close();
+		sink.close();
 		
 		/* String Output_Path = "../../../Desktop/EXPORTED_GRAPH/";
         BasicGraph graph = GraphCreator.createRandomConnectedGraphSimplified(numNodes, k, density, maxDegree, setSizes);
@@ -0,0 +1,364 @@
+package src;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import src.Analysis.StatTracker;
+
+/**
+ * The parameter grid walked by Runner: k x node_num x density x maxDegree.
+ * Every repetition of every configuration is an independent task which
+ * creates one graph with its own random number generator and colors it with
+ * every test function in Analysis.functions, so all functions are compared
+ * on the same graphs and the whole grid can be run on any number of threads.
+ * The generator of every graph is seeded from seed, the configuration and
+ * the repetition only, so any graph of a sweep can be made again on its own
+ * with graph(), whatever thread or order it was first made in.
+ * There is one row per configuration and test function, and the rows are
+ * written in TestID order whatever order the tasks finish in.
+ * The tasks run side by side, except that anything timed on the coloring
+ * pool (the parallel functions, the components and ExactColoring) waits
+ * for the other tasks to pause and runs alone, so it gets the whole pool.
+ */
+public class Sweep {
+
+	/*
+	 * One set of parameters for creating graphs. Its rows have the TestIDs
+	 * firstTestId, firstTestId + 1, ... in the order of Analysis.functions
+	 */
+	public static class Configuration {
+		public final int firstTestId;
+		public final int k;
+		public final int nodeNum;
+		public final double density;
+		public final double maxD; // fraction of the largest possible degree
+		public final int maxDegree;
+		public final int[] setSizes;
+
+		public Configuration(int firstTestId, int k, int nodeNum, double density,
+				double maxD) {
+			this.firstTestId = firstTestId;
+			this.k = k;
+			this.nodeNum = nodeNum;
+			this.density = density;
+			this.maxD = maxD;
+			this.maxDegree = maxDegree(nodeNum, k, maxD);
+			this.setSizes = setSizes(nodeNum, k);
+		}
+	}
+
+	public final List<Configuration> configurations;
+	// Number of how many tests to average together
+	public final int meanCount;
+	// Number of untimed runs of each function before the timed one, so the JIT has warmed up
+	public final int warmupCount;
+	// Graphs of up to this many nodes are also colored by ExactColoring, 0 for none
+	public int exactMaxNodes = 0;
+	// Search nodes and nanoseconds ExactColoring gets for each graph
+	public long exactNodeLimit = 10000000L;
+	public long exactTimeLimit = 10000000000L;
+	// The seed every graph of the sweep is derived from
+	public final long seed;
+	private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+
+	/**
+	 * Lists every configuration of the grid, numbered in the order Runner
+	 * has always written them.
+	 *
+	 * @param kArr - the k values to use
+	 * @param nodeArr - the node counts to use, per color set (multiplied by k)
+	 * @param startDensity, maxDensity, stepDensity - the densities to use
+	 * @param startDegree, maxDegree, stepDegree - the max degrees to use, as
+	 * fractions of the largest possible degree
+	 * @param meanCount - number of graphs each row is averaged over
+	 * @param warmupCount - number of untimed runs of each function on each
+	 * graph before the timed run
+	 * @param seed - every graph is derived from it; a resumed sweep must
+	 * be given the seed it was started with
+	 */
+	public Sweep(int[] kArr, int[] nodeArr, double startDensity, double maxDensity,
+			double stepDensity, double startDegree, double maxDegree, double stepDegree,
+			int meanCount, int warmupCount, long seed) {
+		this.meanCount = meanCount;
+		this.warmupCount = warmupCount;
+		this.seed = seed;
+		configurations = new ArrayList<Configuration>();
+		for (int k : kArr) {
+			for (int node_num : nodeArr) {
+				node_num *= k;
+				for (double density = startDensity; density <= maxDensity; density += stepDensity) {
+					for (double maxD = startDegree; maxD <= maxDegree; maxD += stepDegree) {
+						configurations.add(new Configuration(
+								configurations.size() * Analysis.functions.length,
+								k, node_num, density, maxD));
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Runs every repetition of every configuration on executor and writes
+	 * one CSV row per configuration and test function to sink, in TestID 
+	 * order. Rows before sink.nextTestId() are already in the file, so a 
+	 * resumed sweep starts at the configuration holding that row and 
+	 * skips the rows it already has.
+	 *
+	 * @param executor - runs the tasks; it is not shut down
+	 * @param pool - the parallel functions color on it; it is not shut down
+	 * @param sink - receives the rows
+	 * @throws IOException if writing a row fails
+	 * @throws InterruptedException if interrupted while waiting for a task
+	 */
+	public void run(ExecutorService executor, ForkJoinPool pool, ResultSink sink)
+			throws IOException, InterruptedException {
+		int first = sink.nextTestId() / Analysis.functions.length;
+		// fair, so a task waiting to run alone is not starved by the others
+		ReadWriteLock quiet = new ReentrantReadWriteLock(true);
+		List<List<Future<StatTracker[]>>> results = new ArrayList<List<Future<StatTracker[]>>>();
+		for (int i = 0; i < configurations.size(); i++) {
+			List<Future<StatTracker[]>> reps = new ArrayList<Future<StatTracker[]>>(meanCount);
+			for (int c = 0; i >= first && c < meanCount; c++) {
+				reps.add(executor.submit(new Trial(configurations.get(i), configurationSeed(i), c,
+						warmupCount, this, pool, quiet)));
+			}
+			results.add(reps);
+		}
+
+		ResultSink.Row row = new ResultSink.Row();
+		for (int i = first; i < configurations.size(); i++) {
+			Configuration config = configurations.get(i);
+			// the exact solutions, if any, and the graphs come after the functions
+			StatTracker[] stats = new StatTracker[Analysis.functions.length + 2];
+			for (int f = 0; f < stats.length; f++) {
+				stats[f] = new StatTracker();
+			}
+			for (Future<StatTracker[]> rep : results.get(i)) {
+				StatTracker[] trackers = get(rep);
+				for (int f = 0; f < trackers.length; f++) {
+					stats[f].addTracker(trackers[f]);
+				}
+			}
+			StatTracker exact = stats[Analysis.functions.length];
+			StatTracker graphs = stats[Analysis.functions.length + 1];
+			// drop the finished futures so their trackers can be collected
+			results.set(i, null);
+			for (int f = 0; f < Analysis.functions.length; f++) {
+				if (config.firstTestId + f >= sink.nextTestId()) {
+					writeRow(row, config, configurationSeed(i), f, stats[f], exact, graphs);
+					sink.write(row);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Returns the seed of configuration i, which is written to the Seed
+	 * column of its rows
+	 *
+	 * @param i - index in configurations
+	 * @return
+	 */
+	public long configurationSeed(int i) {
+		return GraphCreator.mixSeed(seed + (i + 1) * GOLDEN_GAMMA);
+	}
+
+	/**
+	 * Returns the seed of the graph of one repetition of a configuration
+	 *
+	 * @param configurationSeed - from configurationSeed or the Seed column
+	 * @param rep - the repetition, from 0 to meanCount - 1
+	 * @return
+	 */
+	public static long repetitionSeed(long configurationSeed, int rep) {
+		return GraphCreator.mixSeed(configurationSeed + (rep + 1) * GOLDEN_GAMMA);
+	}
+
+	/**
+	 * Makes the graph of one repetition of a configuration again
+	 *
+	 * @param config
+	 * @param configurationSeed - from configurationSeed or the Seed column
+	 * @param rep - the repetition, from 0 to meanCount - 1
+	 * @return
+	 */
+	public static CompactGraph graph(Configuration config, long configurationSeed, int rep) {
+		// For now, just use a uniform distribution on the set_sizes
+		return GraphCreator.createConnectedEdgeStream(config.nodeNum, config.k,
+				config.density, config.maxDegree, config.setSizes,
+				repetitionSeed(configurationSeed, rep),
+				GraphCreator.EdgeSampling.forDensity(config.density)).toCompactGraph();
+	}
+
+	/*
+	 * A single repetition: creates a fresh graph and runs every test on it,
+	 * returning the trackers in the order of Analysis.functions, followed
+	 * by one for ExactColoring, empty unless the graph is small enough, and
+	 * one for the components of the graph. Every step holds the read lock
+	 * of quiet, or its write lock if it works on pool.
+	 */
+	private static class Trial implements Callable<StatTracker[]> {
+		private final Configuration config;
+		private final long configurationSeed;
+		private final int rep;
+		private final int warmupCount;
+		private final Sweep sweep;
+		private final ForkJoinPool pool;
+		private final ReadWriteLock quiet;
+
+		Trial(Configuration config, long configurationSeed, int rep, int warmupCount,
+				Sweep sweep, ForkJoinPool pool, ReadWriteLock quiet) {
+			this.config = config;
+			this.configurationSeed = configurationSeed;
+			this.rep = rep;
+			this.warmupCount = warmupCount;
+			this.sweep = sweep;
+			this.pool = pool;
+			this.quiet = quiet;
+		}
+
+		// waits until a step may start: alone if it works on pool, else beside other steps
+		private Lock enter(boolean alone) {
+			Lock lock = alone ? quiet.writeLock() : quiet.readLock();
+			lock.lock();
+			return lock;
+		}
+
+		public StatTracker[] call() {
+			CompactGraph cg;
+			Lock lock = enter(false);
+			try {
+				cg = graph(config, configurationSeed, rep);
+			} finally {
+				lock.unlock();
+			}
+			Coloring coloring = new Coloring(cg.numNodes);
+			StatTracker[] trackers = new StatTracker[Analysis.functions.length + 2];
+			// colors of the graph tracker are its components, and Is-Colored-Correctly whether it is connected
+			Connectivity components;
+			lock = enter(true);
+			try {
+				components = Connectivity.components(cg, pool);
+			} finally {
+				lock.unlock();
+			}
+			trackers[Analysis.functions.length + 1] = new StatTracker(components.duration,
+					components.count, components.isConnected());
+			if (!components.isConnected()) {
+				System.err.println("Graph of TestID " + config.firstTestId + ", repetition " + rep
+						+ ", seed " + configurationSeed + " is not connected: " + components.count
+						+ " components, the largest of " + components.largest + " of " + cg.numNodes + " nodes");
+			}
+			trackers[Analysis.functions.length] = new StatTracker();
+			if (cg.numNodes <= sweep.exactMaxNodes) {
+				// Is-Colored-Correctly of the exact tracker says whether the optimum was proven
+				ExactColoring solution;
+				lock = enter(true);
+				try {
+					solution = ExactColoring.solve(cg, pool, sweep.exactNodeLimit,
+							sweep.exactTimeLimit);
+				} finally {
+					lock.unlock();
+				}
+				trackers[Analysis.functions.length] = new StatTracker(solution.duration,
+						solution.colors, solution.optimal);
+			}
+			for (int f = 0; f < Analysis.functions.length; f++) {
+				Analysis.StatTestFunction function = Analysis.functions[f];
+				lock = enter(function.isParallel());
+				try {
+					for (int w = 0; w < warmupCount; w++) {
+						coloring.reset();
+						function.runTest(cg, coloring, pool);
+					}
+					coloring.reset();
+					trackers[f] = function.runTest(cg, coloring, pool);
+				} finally {
+					lock.unlock();
+				}
+			}
+			return trackers;
+		}
+	}
+
+	private void writeRow(ResultSink.Row row, Configuration config, long configurationSeed, int f,
+			StatTracker stats, StatTracker exact, StatTracker graphs) {
+		row.add(config.firstTestId + f)	// TestID
+				.add(config.k)	// K
+				.add(config.nodeNum)	// Node_Num
+				.add(config.density)	// Density
+				.add(1.0/config.maxD)	// MaxDegree
+				.add("Uniform")	// Distribution
+				.add(stats.my_correctness)	// Is-Colored-Correctly
+				.add((stats.my_color_count/meanCount) - config.k)	// K-Correctness
+				.add(stats.my_duration/meanCount)	// Duration
+				.add(Analysis.functions[f].toString())	// Test_Type
+				.add(stats.sampleCount())	// Runs
+				.add(stats.mean())	// Mean
+				.add(stats.median())	// Median
+				.add(stats.percentile(0.9))	// P90
+				.add(stats.percentile(0.99))	// P99
+				.add(stats.min())	// Min
+				.add(stats.max())	// Max
+				.add(stats.stdDev())	// StdDev
+				.add(stats.confidenceInterval95())	// CI95
+				.add(configurationSeed)	// Seed
+				.add((double)graphs.my_color_count / graphs.sampleCount())	// Components
+				.add(graphs.my_correctness);	// Connected
+		if (exactMaxNodes > 0) {
+			if (exact.sampleCount() == 0) {
+				row.add("").add("").add("");	// not solved, too many nodes
+			} else {
+				double chromatic = (double)exact.my_color_count / exact.sampleCount();
+				row.add(chromatic)	// Chromatic
+						.add(exact.my_correctness)	// Optimal
+						.add((double)stats.my_color_count / meanCount - chromatic);	// Exact-Correctness
+			}
+		}
+	}
+
+	// rethrows whatever a task failed with, so incorrect colorings still stop the sweep
+	private static <T> T get(Future<T> future) throws InterruptedException {
+		try {
+			return future.get();
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof Error)
+				throw (Error) e.getCause();
+			if (e.getCause() instanceof RuntimeException)
+				throw (RuntimeException) e.getCause();
+			throw new RuntimeException(e.getCause());
+		}
+	}
+
+	// spreads the nodes evenly over the k sets, putting the remainder in the first sets
+	static int[] setSizes(int nodeNum, int k) {
+		int[] set_sizes = new int[k];
+		int mod = nodeNum % k; // Get the remainder of the nodes being placed
+		int common_val = nodeNum / k; // Allow the rounding to take place, we will add it later
+		// Create the sets by spreading the remainder out along the rounded down common value
+		int counter = 0;
+		for (; counter < mod; counter++) {
+			set_sizes[counter] = common_val + 1;
+		}
+		for (; counter < k; counter++) {
+			set_sizes[counter] = common_val;
+		}
+		return set_sizes;
+	}
+
+	// the max degree for a fraction maxD of the largest possible degree
+	static int maxDegree(int nodeNum, int k, double maxD) {
+		// calculate the degree, based off the maximum of
+		int max_deg = (Math.round(((float)k - 1f) * ((float)nodeNum/(float)k)) + 1);
+		return (int)Math.round(maxD * (double)max_deg);
+	}
+}
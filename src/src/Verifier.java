@@ -0,0 +1,172 @@
+package src;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Checks one or several colorings of the same graph in a single pass over
+ * its edges. Every edge is looked at once, from its lower numbered end,
+ * and compared in every coloring before moving on, so checking all the
+ * colorings of a graph costs little more than checking one. Several
+ * colorings are first copied side by side into one array. The vertices are
+ * split into ranges of GRAIN which are checked in parallel on a
+ * ForkJoinPool; graphs with fewer vertices are checked by the calling
+ * thread.
+ *
+ * A conflict is an edge whose ends have the same color, or a vertex that
+ * is not colored at all.
+ */
+public class Verifier {
+
+	public static final int GRAIN = 4096;
+
+	/**
+	 * Returns the number of conflicts in each of colorings. With stopAtFirst
+	 * set, all checking stops as soon as any conflict is found, so the
+	 * counts only tell which colorings are known to have one.
+	 *
+	 * @param g
+	 * @param colorings - colorings of g
+	 * @param stopAtFirst - stop at the first conflict in any coloring
+	 * @param pool - checks large graphs; it is not shut down
+	 * @return
+	 */
+	public static long[] conflicts(CompactGraph g, Coloring[] colorings, boolean stopAtFirst,
+			ForkJoinPool pool) {
+		Check check = new Check(g, colorings, stopAtFirst);
+		if (g.numNodes <= GRAIN) {
+			check.range(0, g.numNodes);
+		} else {
+			pool.invoke(new Part(check, 0, g.numNodes));
+		}
+		long[] counts = new long[colorings.length];
+		for (int j = 0; j < counts.length; j++) {
+			counts[j] = check.counts.get(j);
+		}
+		return counts;
+	}
+
+	/**
+	 * Returns true if c colors every vertex of g and no two neighbors alike
+	 *
+	 * @param g
+	 * @param c
+	 * @param pool - checks large graphs; it is not shut down
+	 * @return
+	 */
+	public static boolean isProper(CompactGraph g, Coloring c, ForkJoinPool pool) {
+		return conflicts(g, new Coloring[] {c}, true, pool)[0] == 0;
+	}
+
+	// what the parts of one check share
+	private static class Check {
+		final CompactGraph g;
+		final int[][] colors;
+		final boolean stopAtFirst;
+		final AtomicLongArray counts;
+		// the colors of all colorings side by side, vertex by vertex, so that
+		// comparing the ends of an edge reads two short runs of memory
+		int[] interleaved;
+		volatile boolean stop;
+
+		Check(CompactGraph g, Coloring[] colorings, boolean stopAtFirst) {
+			this.g = g;
+			this.stopAtFirst = stopAtFirst;
+			colors = new int[colorings.length][];
+			for (int j = 0; j < colorings.length; j++) {
+				colors[j] = colorings[j].color;
+			}
+			counts = new AtomicLongArray(colorings.length);
+			if (colorings.length > 1) {
+				interleaved = new int[g.numNodes * colorings.length];
+				for (int j = 0; j < colorings.length; j++) {
+					for (int v = 0; v < g.numNodes; v++) {
+						interleaved[v * colorings.length + j] = colors[j][v];
+					}
+				}
+			}
+		}
+
+		void range(int from, int to) {
+			if (colors.length == 1) {
+				single(from, to);
+				return;
+			}
+			int count = colors.length;
+			long[] found = new long[count];
+			boolean any = false;
+			for (int v = from; v < to && !stop; v++) {
+				int base = v * count;
+				for (int j = 0; j < count; j++) {
+					if (interleaved[base + j] == 0) {
+						found[j]++;
+						any = true;
+					}
+				}
+				for (int i = g.offsets[v]; i < g.offsets[v + 1]; i++) {
+					int n = g.neighbors[i];
+					if (n > v) {
+						int other = n * count;
+						for (int j = 0; j < count; j++) {
+							if (interleaved[base + j] == interleaved[other + j]) {
+								found[j]++;
+								any = true;
+							}
+						}
+					}
+				}
+				if (any && stopAtFirst)
+					stop = true;
+			}
+			for (int j = 0; j < colors.length; j++) {
+				if (found[j] > 0)
+					counts.addAndGet(j, found[j]);
+			}
+		}
+
+		// range() for a single coloring, without the loop over colorings
+		private void single(int from, int to) {
+			int[] color = colors[0];
+			long found = 0;
+			for (int v = from; v < to && !stop; v++) {
+				int cv = color[v];
+				if (cv == 0)
+					found++;
+				for (int i = g.offsets[v]; i < g.offsets[v + 1]; i++) {
+					int n = g.neighbors[i];
+					if (n > v && color[n] == cv)
+						found++;
+				}
+				if (found > 0 && stopAtFirst)
+					stop = true;
+			}
+			if (found > 0)
+				counts.addAndGet(0, found);
+		}
+	}
+
+	// vertices from .. to-1, split in halves until at most GRAIN are left
+	private static class Part extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+		private final Check check;
+		private final int from;
+		private final int to;
+
+		Part(Check check, int from, int to) {
+			this.check = check;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected void compute() {
+			if (to - from <= GRAIN) {
+				check.range(from, to);
+			} else {
+				int mid = (from + to) >>> 1;
+				invokeAll(new Part(check, from, mid), new Part(check, mid, to));
+			}
+		}
+	}
+}
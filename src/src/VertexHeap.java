@@ -0,0 +1,145 @@
+package src;
+
+/**
+ * Indexed binary max-heap of the vertices 0..capacity-1 of a graph, each
+ * with an int key. The vertex with the highest key comes out first; among
+ * equal keys the one of highest degree does, if the heap was given the
+ * degrees, and then the lowest vertex number.
+ *
+ * Since every vertex knows its position in the heap, the key of a vertex
+ * still in the heap can be raised in O(log n), which is what the
+ * resorting heuristics in Analysis need after each vertex is colored.
+ */
+public class VertexHeap {
+
+	private final int[] heap; // heap[0 .. size) are the vertices, best first
+	private final int[] position; // index of each vertex in heap, -1 if not in it
+	private final int[] key;
+	private final int[] degree; // breaks ties between equal keys, may be null
+	private int size;
+
+	public VertexHeap(int capacity) {
+		this(capacity, null);
+	}
+
+	/**
+	 * Makes a heap whose ties between equal keys go to the higher degree
+	 *
+	 * @param degree - the degree of each vertex, e.g. CompactGraph.degree
+	 */
+	public VertexHeap(int[] degree) {
+		this(degree.length, degree);
+	}
+
+	private VertexHeap(int capacity, int[] degree) {
+		this.degree = degree;
+		heap = new int[capacity];
+		position = new int[capacity];
+		key = new int[capacity];
+		for (int v = 0; v < capacity; v++) {
+			position[v] = -1;
+		}
+	}
+
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	public boolean contains(int v) {
+		return position[v] >= 0;
+	}
+
+	/**
+	 * Returns the current key of v
+	 *
+	 * @param v
+	 * @return
+	 */
+	public int key(int v) {
+		return key[v];
+	}
+
+	/**
+	 * Adds v, which must not be in the heap yet, with the given key
+	 *
+	 * @param v
+	 * @param k
+	 */
+	public void add(int v, int k) {
+		key[v] = k;
+		heap[size] = v;
+		position[v] = size;
+		siftUp(size++);
+	}
+
+	/**
+	 * Removes and returns the vertex with the highest key
+	 *
+	 * @return
+	 */
+	public int poll() {
+		int top = heap[0];
+		position[top] = -1;
+		if (--size > 0) {
+			heap[0] = heap[size];
+			position[heap[0]] = 0;
+			siftDown(0);
+		}
+		return top;
+	}
+
+	/**
+	 * Raises the key of v, which must be in the heap, to k. Keys can only
+	 * go up, so a lower k is ignored.
+	 *
+	 * @param v
+	 * @param k
+	 */
+	public void increaseKey(int v, int k) {
+		if (k > key[v]) {
+			key[v] = k;
+			siftUp(position[v]);
+		}
+	}
+
+	// true if vertex a should come out before vertex b
+	private boolean before(int a, int b) {
+		if (key[a] != key[b])
+			return key[a] > key[b];
+		if (degree != null && degree[a] != degree[b])
+			return degree[a] > degree[b];
+		return a < b;
+	}
+
+	private void siftUp(int i) {
+		int v = heap[i];
+		while (i > 0) {
+			int parent = (i - 1) >> 1;
+			if (!before(v, heap[parent]))
+				break;
+			heap[i] = heap[parent];
+			position[heap[i]] = i;
+			i = parent;
+		}
+		heap[i] = v;
+		position[v] = i;
+	}
+
+	private void siftDown(int i) {
+		int v = heap[i];
+		while (true) {
+			int child = 2 * i + 1;
+			if (child >= size)
+				break;
+			if (child + 1 < size && before(heap[child + 1], heap[child]))
+				child++;
+			if (!before(heap[child], v))
+				break;
+			heap[i] = heap[child];
+			position[heap[i]] = i;
+			i = child;
+		}
+		heap[i] = v;
+		position[v] = i;
+	}
+}
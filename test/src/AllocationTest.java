@@ -0,0 +1,82 @@
+package src;
+
+import static org.junit.Assert.assertTrue;
+
+import java.lang.management.ManagementFactory;
+
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Keeps first-fit coloring allocation free: the bytes the JVM reports as
+ * allocated by this thread while coloring a prebuilt graph must stay below
+ * a byte per vertex.
+ */
+public class AllocationTest {
+
+	private static final int REPS = 20;
+
+	private com.sun.management.ThreadMXBean bean;
+	private long thread;
+	private CompactGraph graph;
+
+	@Before
+	public void setUp() {
+		bean = (com.sun.management.ThreadMXBean)ManagementFactory.getThreadMXBean();
+		Assume.assumeTrue(bean.isThreadAllocatedMemorySupported());
+		bean.setThreadAllocatedMemoryEnabled(true);
+		thread = Thread.currentThread().getId();
+		int n = 2000;
+		graph = GraphCreator.createConnectedEdgeStream(n, 20, 0.2, n, Sweep.setSizes(n, 20), 5)
+				.toCompactGraph();
+	}
+
+	private void colorAll(Coloring coloring) {
+		coloring.reset();
+		for (int v = 0; v < graph.numNodes; v++) {
+			Analysis.color(graph, coloring, v);
+		}
+	}
+
+	@Test
+	public void firstFitAllocatesNothing() {
+		Coloring coloring = new Coloring(graph.numNodes);
+		// a few throw-away rounds so the code is compiled and the scratch space is set up
+		for (int c = 0; c < 5; c++) {
+			colorAll(coloring);
+		}
+		long before = bean.getThreadAllocatedBytes(thread);
+		for (int c = 0; c < REPS; c++) {
+			colorAll(coloring);
+		}
+		long allocated = bean.getThreadAllocatedBytes(thread) - before;
+		double perVertex = allocated / ((double)REPS * graph.numNodes);
+		assertTrue("Analysis.color allocates " + perVertex + " bytes per vertex", perVertex < 1.0);
+	}
+
+	// the buffers of iterated greedy are made once, so extra iterations cost nothing
+	@Test
+	public void iteratedGreedyIterationsAllocateNothing() {
+		Coloring coloring = new Coloring(graph.numNodes);
+		Analysis.analyzeIteratedGreedy fewer = new Analysis.analyzeIteratedGreedy(
+				new Analysis.analyzeStrictDecreasingFunction(), Long.MAX_VALUE, 10);
+		Analysis.analyzeIteratedGreedy more = new Analysis.analyzeIteratedGreedy(
+				new Analysis.analyzeStrictDecreasingFunction(), Long.MAX_VALUE, 10 + REPS);
+		for (int c = 0; c < 5; c++) {
+			coloring.reset();
+			more.runTest(graph, coloring);
+		}
+		long before = bean.getThreadAllocatedBytes(thread);
+		coloring.reset();
+		fewer.runTest(graph, coloring);
+		long fewerBytes = bean.getThreadAllocatedBytes(thread) - before;
+		before = bean.getThreadAllocatedBytes(thread);
+		coloring.reset();
+		more.runTest(graph, coloring);
+		long moreBytes = bean.getThreadAllocatedBytes(thread) - before;
+		double perVertex = (moreBytes - fewerBytes) / ((double)REPS * graph.numNodes);
+		assertTrue("analyzeIteratedGreedy allocates " + perVertex + " bytes per vertex per iteration",
+				perVertex < 1.0);
+	}
+}
@@ -0,0 +1,87 @@
+package src;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * The parallel and improving functions of Analysis, on a graph large enough
+ * that their work is split over the pool
+ */
+public class AnalysisTest {
+
+	private static final int N = 4000;
+	private static final int K = 8;
+
+	private static CompactGraph graph;
+	private static ForkJoinPool[] pools;
+
+	@BeforeClass
+	public static void setUp() {
+		graph = GraphCreator.createConnectedEdgeStream(N, K, 0.05, 60, Sweep.setSizes(N, K), 11)
+				.toCompactGraph();
+		pools = new ForkJoinPool[] {new ForkJoinPool(1), new ForkJoinPool(2), new ForkJoinPool(4)};
+	}
+
+	@AfterClass
+	public static void shutDown() {
+		for (ForkJoinPool pool : pools) {
+			pool.shutdownNow();
+		}
+	}
+
+	// colors graph with f on pool, checking the coloring is proper and first-fit bounded
+	private static Coloring color(Analysis.StatTestFunction f, ForkJoinPool pool) {
+		Coloring c = new Coloring(graph.numNodes);
+		Analysis.StatTracker tracker = f.runTest(graph, c, pool);
+		assertTrue(tracker.my_correctness);
+		assertTrue(Verifier.isProper(graph, c, pool));
+		assertTrue(c.numColors() <= graph.maxDegree() + 1);
+		return c;
+	}
+
+	// the same seed gives the same coloring on any number of threads
+	@Test
+	public void jonesPlassmannDependsOnlyOnSeed() {
+		int[] expected = color(new Analysis.analyzeJonesPlassmann(5), pools[0]).color;
+		for (ForkJoinPool pool : pools) {
+			assertArrayEquals(expected, color(new Analysis.analyzeJonesPlassmann(5), pool).color);
+		}
+	}
+
+	// proper on any number of slices; a single slice has no conflicts and is plain first-fit
+	@Test
+	public void speculativeRepairsConflicts() {
+		for (int slices = 1; slices <= 16; slices *= 2) {
+			color(new Analysis.analyzeSpeculative(slices), pools[2]);
+		}
+		Coloring single = new Coloring(graph.numNodes);
+		Analysis.StatTracker tracker = new Analysis.analyzeSpeculative(1).runTest(graph, single, pools[2]);
+		assertEquals(0, tracker.conflicts(0));
+		Coloring firstFit = new Coloring(graph.numNodes);
+		new Analysis.analyzeStrictDecreasingFunction().runTest(graph, firstFit);
+		assertArrayEquals(firstFit.color, single.color);
+	}
+
+	// never more colors than the coloring it starts from, and the same ones for a seed
+	@Test
+	public void iteratedGreedyOnlyImproves() {
+		Coloring start = new Coloring(graph.numNodes);
+		new Analysis.analyzeJonesPlassmann().runTest(graph, start, pools[0]);
+		Analysis.analyzeIteratedGreedy greedy = new Analysis.analyzeIteratedGreedy(
+				new Analysis.analyzeJonesPlassmann(), Long.MAX_VALUE, 50, 3);
+		Coloring first = color(greedy, pools[0]);
+		assertTrue(first.numColors() <= start.numColors());
+		assertArrayEquals(first.color, color(greedy, pools[0]).color);
+		// a budget of 0 stops after the starting coloring
+		Coloring none = color(new Analysis.analyzeIteratedGreedy(
+				new Analysis.analyzeJonesPlassmann(), 0, 50, 3), pools[0]);
+		assertArrayEquals(start.color, none.color);
+	}
+}
@@ -0,0 +1,91 @@
+package src;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.Test;
+
+public class BlockGeneratorTest {
+
+	private static final int N = 300;
+	private static final int K = 5;
+
+	private static CompactGraph create(boolean connected, double density, int maxDegree,
+			long seed, int threads) {
+		ForkJoinPool pool = new ForkJoinPool(threads);
+		try {
+			if (connected)
+				return GraphCreator.createCompactConnectedGraphParallel(N, K, density, maxDegree,
+						Sweep.setSizes(N, K), seed, pool);
+			return GraphCreator.createCompactGraphParallel(N, K, density, maxDegree,
+					Sweep.setSizes(N, K), seed, pool);
+		} finally {
+			pool.shutdownNow();
+		}
+	}
+
+	// keeps to maxDegree, has no edge inside a set and no repeated edge, and every edge both ways
+	private static void assertPartite(CompactGraph g, int maxDegree) {
+		int[] seen = new int[g.numNodes];
+		Arrays.fill(seen, -1);
+		for (int v = 0; v < g.numNodes; v++) {
+			assertTrue(g.degree[v] <= maxDegree);
+			for (int i = g.offsets[v]; i < g.offsets[v + 1]; i++) {
+				int n = g.neighbors[i];
+				assertTrue(g.setNumber[n] != g.setNumber[v]);
+				assertTrue("edge " + v + "-" + n + " is there twice", seen[n] != v);
+				seen[n] = v;
+				boolean back = false;
+				for (int j = g.offsets[n]; j < g.offsets[n + 1]; j++) {
+					back |= g.neighbors[j] == v;
+				}
+				assertTrue(back);
+			}
+		}
+	}
+
+	@Test
+	public void partiteWithinMaxDegree() {
+		for (long seed = 0; seed < 6; seed++) {
+			int maxDegree = 3 + (int)seed * 20;
+			assertPartite(create(true, 0.5, maxDegree, seed, 2), maxDegree);
+			assertPartite(create(false, 0.5, maxDegree, seed, 2), maxDegree);
+		}
+	}
+
+	@Test
+	public void sameGraphForAnyNumberOfThreads() {
+		for (long seed = 0; seed < 3; seed++) {
+			CompactGraph single = create(true, 0.3, 40, seed, 1);
+			for (int threads = 2; threads <= 8; threads *= 2) {
+				CompactGraph g = create(true, 0.3, 40, seed, threads);
+				assertArrayEquals(single.offsets, g.offsets);
+				assertArrayEquals(single.neighbors, g.neighbors);
+				assertArrayEquals(single.ids, g.ids);
+				assertArrayEquals(single.setNumber, g.setNumber);
+			}
+		}
+	}
+
+	@Test
+	public void connectedWhenMaxDegreeAllows() {
+		CompactGraph g = create(true, 0.0, N, 3, 4);
+		assertEquals(N - 1, g.numEdges());
+		int[] component = Graphs.components(g);
+		for (int v = 0; v < g.numNodes; v++) {
+			assertEquals(0, component[v]);
+		}
+	}
+
+	@Test
+	public void vertexOrderByDecreasingDegree() {
+		CompactGraph g = create(false, 0.2, N, 9, 4);
+		for (int v = 1; v < g.numNodes; v++) {
+			assertTrue(g.degree[v - 1] >= g.degree[v]);
+		}
+	}
+}
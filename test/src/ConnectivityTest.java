@@ -0,0 +1,87 @@
+package src;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.After;
+import org.junit.Test;
+
+/**
+ * Connectivity against a plain breadth-first search, on graphs above GRAIN
+ * so the parallel search is used
+ */
+public class ConnectivityTest {
+
+	private final ForkJoinPool pool = new ForkJoinPool(4);
+
+	@After
+	public void shutDown() {
+		pool.shutdownNow();
+	}
+
+	private void check(CompactGraph g) {
+		Connectivity components = Connectivity.components(g, pool);
+		int[] expected = Graphs.components(g);
+		assertArrayEquals(expected, components.component);
+		int count = 0;
+		int[] size = new int[g.numNodes];
+		int largest = 0;
+		for (int v = 0; v < g.numNodes; v++) {
+			count = Math.max(count, expected[v] + 1);
+			largest = Math.max(largest, ++size[expected[v]]);
+		}
+		assertEquals(count, components.count);
+		assertEquals(largest, components.largest);
+		assertEquals(count <= 1, components.isConnected());
+	}
+
+	// sparse enough to fall apart into many components
+	@Test
+	public void sparseRandomGraph() {
+		int n = 3 * Connectivity.GRAIN;
+		CompactGraph g = GraphCreator.createEdgeStream(n, 3, 0.0002, n, Sweep.setSizes(n, 3), 1)
+				.toCompactGraph();
+		check(g);
+		assertTrue(Connectivity.components(g, pool).count > 1);
+	}
+
+	// dense enough for the search to go bottom-up
+	@Test
+	public void denseConnectedGraph() {
+		int n = 2 * Connectivity.GRAIN + 7;
+		CompactGraph g = GraphCreator.createConnectedEdgeStream(n, 4, 0.01, n, Sweep.setSizes(n, 4), 2)
+				.toCompactGraph();
+		check(g);
+		assertTrue(Connectivity.components(g, pool).isConnected());
+	}
+
+	// vertex 0, where the parallel search starts, in a small component
+	@Test
+	public void smallFirstComponent() {
+		int n = Connectivity.GRAIN + 100;
+		List<int[]> edges = new ArrayList<int[]>();
+		edges.add(new int[] {0, n - 1});
+		for (int v = 1; v + 1 < n - 1; v++) {
+			if (v % 1000 != 0)
+				edges.add(new int[] {v, v + 1});
+		}
+		CompactGraph g = Graphs.fromEdges(n, edges.toArray(new int[0][]));
+		check(g);
+		assertFalse(Connectivity.components(g, pool).isConnected());
+	}
+
+	@Test
+	public void smallAndEmptyGraphs() {
+		check(Graphs.cycle(10));
+		check(Graphs.fromEdges(3, new int[0][]));
+		Connectivity none = Connectivity.components(Graphs.fromEdges(0, new int[0][]), pool);
+		assertEquals(0, none.count);
+		assertTrue(none.isConnected());
+	}
+}
@@ -0,0 +1,59 @@
+package src;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Test;
+
+public class EdgeIndexTest {
+
+	@Test
+	public void edgesHaveNoDirection() {
+		EdgeIndex index = new EdgeIndex();
+		assertTrue(index.add(3, 7));
+		assertTrue(index.contains(3, 7));
+		assertTrue(index.contains(7, 3));
+		assertFalse(index.add(7, 3));
+		assertFalse(index.contains(3, 8));
+		assertEquals(1, index.size());
+	}
+
+	@Test
+	public void keepsLargeAndZeroIds() {
+		EdgeIndex index = new EdgeIndex(1);
+		assertTrue(index.add(0, 0));
+		assertTrue(index.add(0, Integer.MAX_VALUE));
+		assertTrue(index.add(Integer.MAX_VALUE - 1, Integer.MAX_VALUE));
+		assertTrue(index.contains(0, 0));
+		assertTrue(index.contains(Integer.MAX_VALUE, 0));
+		assertTrue(index.contains(Integer.MAX_VALUE, Integer.MAX_VALUE - 1));
+		assertFalse(index.contains(1, 0));
+		assertEquals(3, index.size());
+	}
+
+	// many random edges, so the table grows several times, against a HashSet
+	@Test
+	public void matchesHashSetWhileGrowing() {
+		Random random = new Random(1);
+		EdgeIndex index = new EdgeIndex();
+		Set<Long> expected = new HashSet<Long>();
+		for (int i = 0; i < 100000; i++) {
+			int a = random.nextInt(2000);
+			int b = random.nextInt(2000);
+			long key = (long)Math.min(a, b) << 32 | Math.max(a, b);
+			assertEquals(expected.add(key), index.add(a, b));
+		}
+		assertEquals(expected.size(), index.size());
+		for (int i = 0; i < 100000; i++) {
+			int a = random.nextInt(2000);
+			int b = random.nextInt(2000);
+			long key = (long)Math.min(a, b) << 32 | Math.max(a, b);
+			assertEquals(expected.contains(key), index.contains(b, a));
+		}
+	}
+}
@@ -0,0 +1,72 @@
+package src;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+public class EdgeStreamTest {
+
+	private static final int N = 90;
+	private static final int K = 4;
+
+	private static void assertSameGraph(CompactGraph expected, CompactGraph actual) {
+		assertArrayEquals(expected.offsets, actual.offsets);
+		assertArrayEquals(expected.neighbors, actual.neighbors);
+		assertArrayEquals(expected.ids, actual.ids);
+		assertArrayEquals(expected.setNumber, actual.setNumber);
+	}
+
+	// the stream builds the graph the generator builds from the same seed
+	@Test
+	public void connectedMatchesGenerator() {
+		int[] setSizes = Sweep.setSizes(N, K);
+		for (GraphCreator.EdgeSampling sampling : GraphCreator.EdgeSampling.values()) {
+			for (long seed = 0; seed < 10; seed++) {
+				double density = seed / 10.0;
+				int maxDegree = 5 + (int)seed * 8;
+				CompactGraph objects = new CompactGraph(GraphCreator.createRandomConnectedGraphSimplified(
+						N, K, density, maxDegree, setSizes, new Random(seed), sampling));
+				CompactGraph streamed = GraphCreator.createConnectedEdgeStream(
+						N, K, density, maxDegree, setSizes, seed, sampling).toCompactGraph();
+				assertSameGraph(objects, streamed);
+			}
+		}
+	}
+
+	@Test
+	public void unconnectedMatchesGenerator() {
+		int[] setSizes = Sweep.setSizes(N, K);
+		for (GraphCreator.EdgeSampling sampling : GraphCreator.EdgeSampling.values()) {
+			for (long seed = 0; seed < 10; seed++) {
+				double density = seed / 10.0;
+				int maxDegree = 5 + (int)seed * 8;
+				CompactGraph objects = new CompactGraph(GraphCreator.createRandomGraphSimplified(
+						N, K, density, maxDegree, setSizes, new Random(seed), sampling));
+				CompactGraph streamed = GraphCreator.createEdgeStream(
+						N, K, density, maxDegree, setSizes, seed, sampling).toCompactGraph();
+				assertSameGraph(objects, streamed);
+			}
+		}
+	}
+
+	// every iterator goes through the same edges
+	@Test
+	public void iteratorsRepeat() {
+		EdgeStream stream = GraphCreator.createConnectedEdgeStream(N, K, 0.3, 20,
+				Sweep.setSizes(N, K), 7);
+		EdgeStream.EdgeIterator first = stream.iterator();
+		EdgeStream.EdgeIterator second = stream.iterator();
+		int edges = 0;
+		while (first.next()) {
+			assertEquals(true, second.next());
+			assertEquals(first.from, second.from);
+			assertEquals(first.to, second.to);
+			edges++;
+		}
+		assertEquals(false, second.next());
+		assertEquals(stream.toCompactGraph().numEdges(), edges);
+	}
+}
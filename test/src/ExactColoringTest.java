@@ -0,0 +1,78 @@
+package src;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.After;
+import org.junit.Test;
+
+/**
+ * ExactColoring on graphs whose chromatic number is known
+ */
+public class ExactColoringTest {
+
+	private final ForkJoinPool pool = new ForkJoinPool(2);
+
+	@After
+	public void shutDown() {
+		pool.shutdownNow();
+	}
+
+	private void check(CompactGraph g, int chromatic) {
+		ExactColoring solution = ExactColoring.solve(g, pool, Long.MAX_VALUE, 60000000000L);
+		assertTrue(solution.optimal);
+		assertEquals(chromatic, solution.colors);
+		assertTrue(solution.lowerBound <= chromatic);
+		assertEquals(chromatic, solution.coloring.numColors());
+		assertTrue(Verifier.isProper(g, solution.coloring, pool));
+	}
+
+	@Test
+	public void completeGraphs() {
+		check(Graphs.complete(1), 1);
+		check(Graphs.complete(5), 5);
+	}
+
+	@Test
+	public void cycles() {
+		check(Graphs.cycle(8), 2);
+		check(Graphs.cycle(9), 3);
+	}
+
+	// 3 colors, while its largest clique is an edge
+	@Test
+	public void petersenGraph() {
+		check(Graphs.fromEdges(10, new int[][] {
+			{0, 1}, {1, 2}, {2, 3}, {3, 4}, {4, 0},
+			{0, 5}, {1, 6}, {2, 7}, {3, 8}, {4, 9},
+			{5, 7}, {7, 9}, {9, 6}, {6, 8}, {8, 5}
+		}), 3);
+	}
+
+	// the Mycielskian of C5: triangle free, and still 4 colors
+	@Test
+	public void grotzschGraph() {
+		int[][] edges = new int[20][];
+		int e = 0;
+		for (int v = 0; v < 5; v++) {
+			int w = (v + 1) % 5;
+			edges[e++] = new int[] {v, w};
+			// copy v + 5 of v is joined to the neighbors of v, and to the hub 10
+			edges[e++] = new int[] {v + 5, w};
+			edges[e++] = new int[] {w + 5, v};
+			edges[e++] = new int[] {v + 5, 10};
+		}
+		check(Graphs.fromEdges(11, edges), 4);
+	}
+
+	// a generated k-partite graph at full density holds a k-clique, so it needs exactly k colors
+	@Test
+	public void densePartiteGraph() {
+		int n = 24;
+		CompactGraph g = GraphCreator.createConnectedEdgeStream(n, 4, 1.0, n, Sweep.setSizes(n, 4), 3)
+				.toCompactGraph();
+		check(g, 4);
+	}
+}
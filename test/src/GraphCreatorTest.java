@@ -0,0 +1,184 @@
+package src;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import src.BasicGraph.Node;
+
+public class GraphCreatorTest {
+
+	// the most edges a graph of n nodes in sets id % k can have
+	private static long maxEdges(int n, int k) {
+		long edges = 0;
+		for (int a = 0; a < n; a++) {
+			for (int b = a + 1; b < n; b++) {
+				if (a % k != b % k)
+					edges++;
+			}
+		}
+		return edges;
+	}
+
+	// every edge joins two sets and no node is above maxDegree
+	private static void assertValid(BasicGraph g, int k, int maxDegree) {
+		for (Node node : g.allNodes) {
+			assertTrue(node.degree <= maxDegree);
+			for (Node other : node.connections) {
+				assertTrue(node.id % k != other.id % k);
+			}
+		}
+	}
+
+	@Test
+	public void fullDensityAddsEveryValidEdge() {
+		for (long seed = 0; seed < 20; seed++) {
+			BasicGraph g = GraphCreator.createRandomGraph(40, 3, 1.0, 40, new Random(seed));
+			assertValid(g, 3, 40);
+			assertEquals(maxEdges(40, 3), g.numEdges());
+		}
+	}
+
+	@Test
+	public void partialDensityAddsExactlyItsShare() {
+		for (long seed = 0; seed < 20; seed++) {
+			BasicGraph g = GraphCreator.createRandomGraph(40, 4, 0.95, 40, new Random(seed));
+			assertValid(g, 4, 40);
+			assertEquals((long) (maxEdges(40, 4) * 0.95), g.numEdges());
+		}
+	}
+
+	// a tight maxDegree at full density used to draw forever once no valid
+	// edge was left; now it stops with no valid edge left to add
+	@Test(timeout = 10000)
+	public void tightMaxDegreeStopsWhenNoValidEdgeIsLeft() {
+		for (long seed = 0; seed < 50; seed++) {
+			BasicGraph g = GraphCreator.createRandomGraph(9, 2, 1.0, 2, new Random(seed));
+			assertValid(g, 2, 2);
+			for (Node a : g.allNodes) {
+				for (Node b : g.allNodes) {
+					if (a.id % 2 != b.id % 2 && !g.existsEdge(a, b))
+						assertTrue(a.degree == 2 || b.degree == 2);
+				}
+			}
+		}
+	}
+
+	@Test
+	public void lineWithNoNodes() {
+		BasicGraph g = GraphCreator.createRandomConnectedGraphFromLine(0, 3, 1.0, 5, new Random(1));
+		assertEquals(0, g.allNodes.size());
+	}
+
+	@Test
+	public void lineStaysConnected() {
+		BasicGraph g = GraphCreator.createRandomConnectedGraphFromLine(30, 3, 0.2, 4, new Random(3));
+		assertValid(g, 3, 4);
+		assertTrue(g.isConnected());
+	}
+
+	// the gaps between added pairs are geometric, with mean (1 - p) / p
+	@Test
+	public void geometricSkipHasGeometricMean() {
+		Random random = new Random(4);
+		assertEquals(0, GraphCreator.geometricSkip(Math.log(1.0 - 1.0), random));
+		double p = 0.2;
+		double logQ = Math.log(1.0 - p);
+		int draws = 100000;
+		long total = 0;
+		for (int i = 0; i < draws; i++) {
+			total += GraphCreator.geometricSkip(logQ, random);
+		}
+		assertEquals((1 - p) / p, total / (double)draws, 0.05);
+	}
+
+	// without a degree limit every valid pair is added with probability density
+	@Test
+	public void geometricSkipAddsItsShareOfPairs() {
+		int n = 600;
+		int k = 3;
+		double density = 0.1;
+		long pairs = maxEdges(n, k);
+		for (long seed = 0; seed < 5; seed++) {
+			BasicGraph g = GraphCreator.createRandomGraphSimplified(n, k, density, n,
+					Sweep.setSizes(n, k), new Random(seed), GraphCreator.EdgeSampling.GEOMETRIC_SKIP);
+			double sd = Math.sqrt(pairs * density * (1 - density));
+			assertEquals(pairs * density, g.numEdges(), 5 * sd);
+		}
+	}
+
+	@Test
+	public void geometricSkipKeepsToMaxDegree() {
+		int n = 300;
+		for (long seed = 0; seed < 5; seed++) {
+			BasicGraph g = GraphCreator.createRandomConnectedGraphSimplified(n, 4, 0.5, 7,
+					Sweep.setSizes(n, 4), new Random(seed), GraphCreator.EdgeSampling.GEOMETRIC_SKIP);
+			for (Node node : g.allNodes) {
+				assertTrue(node.degree <= 7);
+				for (Node other : node.connections) {
+					assertTrue(node.setNumber != other.setNumber);
+				}
+			}
+		}
+	}
+
+	// every node is joined to an earlier node of another set, within maxDegree
+	@Test
+	public void backboneIsATreeWithinMaxDegree() {
+		int n = 500;
+		int k = 4;
+		int[] setOf = new int[n];
+		for (int v = 0; v < n; v++) {
+			setOf[v] = v % k;
+		}
+		for (int maxDegree = 1; maxDegree <= 5; maxDegree++) {
+			int[] backbone = GraphCreator.randomBackbone(setOf, k, maxDegree, new Random(maxDegree));
+			int[] degree = new int[n];
+			int missing = 0;
+			for (int v = 0; v < n; v++) {
+				if (backbone[v] < 0) {
+					missing++;
+					continue;
+				}
+				assertTrue(backbone[v] < v);
+				assertTrue(setOf[backbone[v]] != setOf[v]);
+				degree[v]++;
+				degree[backbone[v]]++;
+			}
+			for (int v = 0; v < n; v++) {
+				assertTrue(degree[v] <= maxDegree);
+			}
+			if (maxDegree >= 2)
+				assertEquals(1, missing); // only node 0
+		}
+	}
+
+	// the pick is uniform over the earlier open nodes of other sets, both when
+	// it draws from all open nodes and when it walks the sets
+	@Test
+	public void backbonePicksUniformly() {
+		assertUniform(new int[] {0, 1, 2, 0, 1, 2}, 3, new int[] {0, 1, 3, 4});
+		assertUniform(new int[] {0, 2, 1, 1, 1, 1}, 3, new int[] {0, 1});
+	}
+
+	// the last node of setOf must pick each of candidates equally often
+	private static void assertUniform(int[] setOf, int k, int[] candidates) {
+		int last = setOf.length - 1;
+		int draws = 40000;
+		int[] count = new int[last];
+		Random random = new Random(8);
+		for (int i = 0; i < draws; i++) {
+			count[GraphCreator.randomBackbone(setOf, k, setOf.length, random)[last]]++;
+		}
+		double share = draws / (double)candidates.length;
+		int seen = 0;
+		for (int v : candidates) {
+			assertEquals(share, count[v], 5 * Math.sqrt(share));
+			seen += count[v];
+		}
+		assertEquals(draws, seen);
+	}
+}
@@ -0,0 +1,133 @@
+package src;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class GraphFileTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private static CompactGraph graph() {
+		return GraphCreator.createConnectedEdgeStream(60, 3, 0.3, 60, Sweep.setSizes(60, 3), 4)
+				.toCompactGraph();
+	}
+
+	private static void assertSameGraph(CompactGraph expected, CompactGraph actual) {
+		assertEquals(expected.numNodes, actual.numNodes);
+		assertArrayEquals(expected.offsets, actual.offsets);
+		assertArrayEquals(expected.neighbors, actual.neighbors);
+		assertArrayEquals(expected.ids, actual.ids);
+		assertArrayEquals(expected.setNumber, actual.setNumber);
+		assertArrayEquals(expected.degree, actual.degree);
+	}
+
+	@Test
+	public void roundTripWithSetsAndColors() throws IOException {
+		CompactGraph g = graph();
+		Coloring coloring = new Coloring(g.numNodes);
+		for (int v = 0; v < g.numNodes; v++) {
+			Analysis.color(g, coloring, v);
+		}
+		File file = folder.newFile("colored.cgr");
+		GraphFile.write(file, g, coloring);
+		GraphFile loaded = GraphFile.read(file);
+		assertSameGraph(g, loaded.graph);
+		assertArrayEquals(coloring.color, loaded.coloring.color);
+	}
+
+	@Test
+	public void roundTripWithoutSetsOrColors() throws IOException {
+		CompactGraph g = Graphs.cycle(7);
+		File file = folder.newFile("plain.cgr");
+		GraphFile.write(file, g, null);
+		GraphFile loaded = GraphFile.read(file);
+		assertSameGraph(g, loaded.graph);
+		assertNull(loaded.coloring);
+	}
+
+	@Test
+	public void emptyGraph() throws IOException {
+		CompactGraph g = Graphs.fromEdges(0, new int[0][]);
+		File file = folder.newFile("empty.cgr");
+		GraphFile.write(file, g, null);
+		assertSameGraph(g, GraphFile.read(file).graph);
+	}
+
+	@Test
+	public void rejectsOtherFiles() throws IOException {
+		File file = folder.newFile("other.cgr");
+		GraphFile.write(file, graph(), null);
+		RandomAccessFile raf = new RandomAccessFile(file, "rw");
+		try {
+			raf.write('X');
+		} finally {
+			raf.close();
+		}
+		expectIOException(file);
+	}
+
+	@Test
+	public void rejectsCutShortFiles() throws IOException {
+		File file = folder.newFile("short.cgr");
+		GraphFile.write(file, graph(), null);
+		RandomAccessFile raf = new RandomAccessFile(file, "rw");
+		try {
+			raf.setLength(raf.length() - 4);
+		} finally {
+			raf.close();
+		}
+		expectIOException(file);
+	}
+
+	@Test
+	public void rejectsDecreasingOffsets() throws IOException {
+		File file = folder.newFile("offsets.cgr");
+		CompactGraph g = graph();
+		GraphFile.write(file, g, null);
+		// offsets[1] past offsets[2]
+		overwrite(file, OFFSETS + 4, g.offsets[2] + 1);
+		expectIOException(file);
+	}
+
+	@Test
+	public void rejectsNeighborsOutOfRange() throws IOException {
+		File file = folder.newFile("neighbors.cgr");
+		CompactGraph g = graph();
+		GraphFile.write(file, g, null);
+		overwrite(file, OFFSETS + 4 * (g.numNodes + 1), g.numNodes);
+		expectIOException(file);
+	}
+
+	private static final int OFFSETS = 32; // byte position of offsets, after the header
+
+	// writes value as a little-endian int at byte position
+	private static void overwrite(File file, long position, int value) throws IOException {
+		RandomAccessFile raf = new RandomAccessFile(file, "rw");
+		try {
+			raf.seek(position);
+			raf.writeInt(Integer.reverseBytes(value));
+		} finally {
+			raf.close();
+		}
+	}
+
+	private static void expectIOException(File file) {
+		try {
+			GraphFile.read(file);
+			fail("read " + file);
+		} catch (IOException e) {
+			// expected
+		}
+	}
+}
@@ -0,0 +1,122 @@
+package src;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * GraphImporter with chunks of every size from one byte up, so that chunk
+ * boundaries fall everywhere in a line
+ */
+public class GraphImporterTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private final ExecutorService executor = Executors.newFixedThreadPool(3);
+
+	@After
+	public void shutDown() {
+		executor.shutdownNow();
+	}
+
+	private File write(String name, String text) throws IOException {
+		File file = folder.newFile(name);
+		FileOutputStream out = new FileOutputStream(file);
+		try {
+			out.write(text.getBytes("US-ASCII"));
+		} finally {
+			out.close();
+		}
+		return file;
+	}
+
+	// the edges of g as "a-b" in file numbers, smaller first
+	private static Set<String> edges(CompactGraph g) {
+		Set<String> edges = new TreeSet<String>();
+		for (int v = 0; v < g.numNodes; v++) {
+			for (int i = g.offsets[v]; i < g.offsets[v + 1]; i++) {
+				int a = g.ids[v];
+				int b = g.ids[g.neighbors[i]];
+				edges.add(Math.min(a, b) + "-" + Math.max(a, b));
+			}
+		}
+		return edges;
+	}
+
+	private static Set<String> set(String... edges) {
+		return new TreeSet<String>(Arrays.asList(edges));
+	}
+
+	private void checkEveryChunkSize(File file, int numNodes, Set<String> expected)
+			throws IOException, InterruptedException {
+		for (int chunkSize = 1; chunkSize <= file.length() + 1; chunkSize++) {
+			CompactGraph g = GraphImporter.read(file, executor, chunkSize).graph;
+			assertEquals("chunks of " + chunkSize, numNodes, g.numNodes);
+			assertEquals("chunks of " + chunkSize, expected, edges(g));
+			for (int v = 1; v < g.numNodes; v++) {
+				assertTrue(g.degree[v - 1] >= g.degree[v]);
+			}
+		}
+	}
+
+	@Test
+	public void dimacsFile() throws IOException, InterruptedException {
+		File file = write("graph.col", "c a small graph\n"
+				+ "p edge 6 7\n"
+				+ "e 1 2\n"
+				+ "e 2 3\r\n"
+				+ "% a comment\n"
+				+ "e  3\t1\n"
+				+ "e 4 5\n"
+				+ "e 5 4\n" // the same edge again
+				+ "e 5 5\n" // a self loop
+				+ "\n"
+				+ "e 1 4");
+		checkEveryChunkSize(file, 6, set("1-2", "2-3", "1-3", "4-5", "1-4"));
+	}
+
+	@Test
+	public void edgeList() throws IOException, InterruptedException {
+		File file = write("graph.txt", "# from 0\n0 1\n1 2\n 2 3 \n3 0\n0 12\n");
+		checkEveryChunkSize(file, 13, set("0-1", "1-2", "2-3", "0-3", "0-12"));
+	}
+
+	@Test
+	public void malformedLine() throws IOException, InterruptedException {
+		File file = write("bad.col", "p edge 3 2\ne 1 2\ne 2 x\n");
+		for (int chunkSize = 1; chunkSize <= file.length(); chunkSize++) {
+			try {
+				GraphImporter.read(file, executor, chunkSize);
+				fail("read " + file + " in chunks of " + chunkSize);
+			} catch (IOException e) {
+				// expected
+			}
+		}
+	}
+
+	@Test
+	public void vertexAboveDeclared() throws IOException, InterruptedException {
+		File file = write("big.col", "p edge 3 1\ne 1 4\n");
+		try {
+			GraphImporter.read(file, executor);
+			fail("read " + file);
+		} catch (IOException e) {
+			// expected
+		}
+	}
+}
@@ -0,0 +1,85 @@
+package src;
+
+import java.util.Arrays;
+
+/**
+ * Small hand-made graphs for the tests, built straight into a CompactGraph
+ */
+class Graphs {
+
+	/*
+	 * The graph on vertices 0..n-1 with the given edges, each a pair of
+	 * vertices; vertex v gets id v and no set
+	 */
+	static CompactGraph fromEdges(int n, int[][] edges) {
+		int[] offsets = new int[n + 1];
+		for (int[] e : edges) {
+			offsets[e[0] + 1]++;
+			offsets[e[1] + 1]++;
+		}
+		for (int v = 0; v < n; v++) {
+			offsets[v + 1] += offsets[v];
+		}
+		int[] neighbors = new int[offsets[n]];
+		int[] fill = Arrays.copyOf(offsets, n);
+		for (int[] e : edges) {
+			neighbors[fill[e[0]]++] = e[1];
+			neighbors[fill[e[1]]++] = e[0];
+		}
+		int[] ids = new int[n];
+		int[] setNumber = new int[n];
+		for (int v = 0; v < n; v++) {
+			ids[v] = v;
+			setNumber[v] = -1;
+		}
+		return new CompactGraph(offsets, neighbors, ids, setNumber);
+	}
+
+	// the cycle 0-1-...-(n-1)-0
+	static CompactGraph cycle(int n) {
+		int[][] edges = new int[n][];
+		for (int v = 0; v < n; v++) {
+			edges[v] = new int[] {v, (v + 1) % n};
+		}
+		return fromEdges(n, edges);
+	}
+
+	// every vertex joined to every other
+	static CompactGraph complete(int n) {
+		int[][] edges = new int[n * (n - 1) / 2][];
+		int e = 0;
+		for (int a = 0; a < n; a++) {
+			for (int b = a + 1; b < n; b++) {
+				edges[e++] = new int[] {a, b};
+			}
+		}
+		return fromEdges(n, edges);
+	}
+
+	// the component of every vertex by a plain breadth-first search, numbered in order of their first vertex
+	static int[] components(CompactGraph g) {
+		int[] component = new int[g.numNodes];
+		Arrays.fill(component, -1);
+		int[] queue = new int[g.numNodes];
+		int count = 0;
+		for (int s = 0; s < g.numNodes; s++) {
+			if (component[s] >= 0)
+				continue;
+			component[s] = count;
+			int head = 0;
+			int tail = 0;
+			queue[tail++] = s;
+			while (head < tail) {
+				int u = queue[head++];
+				for (int i = g.offsets[u]; i < g.offsets[u + 1]; i++) {
+					if (component[g.neighbors[i]] < 0) {
+						component[g.neighbors[i]] = count;
+						queue[tail++] = g.neighbors[i];
+					}
+				}
+			}
+			count++;
+		}
+		return component;
+	}
+}
@@ -0,0 +1,34 @@
+package src;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import org.junit.Test;
+
+public class OrderingTest {
+
+	// degrees 1, 3, 2, 1, 3, 2
+	private static CompactGraph graph() {
+		return Graphs.fromEdges(6, new int[][] {{0, 1}, {1, 2}, {1, 4}, {2, 5}, {3, 4}, {4, 5}});
+	}
+
+	@Test
+	public void largestFirstByDegreeThenVertex() {
+		assertArrayEquals(new int[] {1, 4, 2, 5, 0, 3}, Ordering.largestFirst(graph()));
+	}
+
+	@Test
+	public void everyOrderingHoldsEveryVertexOnce() {
+		CompactGraph g = graph();
+		for (Ordering.Type type : Ordering.Type.values()) {
+			boolean[] seen = new boolean[g.numNodes];
+			int[] order = type.order(g);
+			assertEquals(g.numNodes, order.length);
+			for (int v : order) {
+				assertFalse(type + " repeats " + v, seen[v]);
+				seen[v] = true;
+			}
+		}
+	}
+}
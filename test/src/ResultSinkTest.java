@@ -0,0 +1,138 @@
+package src;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class ResultSinkTest {
+
+	private static final String HEADER = "TestID, Name, Value";
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	// a sink on file with rows first .. last - 1
+	private static void writeRows(File file, boolean resume, int first, int last)
+			throws IOException, InterruptedException {
+		ResultSink sink = new ResultSink(file, HEADER, resume, 4, 2);
+		assertEquals(first, sink.nextTestId());
+		ResultSink.Row row = new ResultSink.Row();
+		for (int id = first; id < last; id++) {
+			sink.write(row.add(id).add("row").add(id / 4.0));
+		}
+		sink.close();
+	}
+
+	private static void append(File file, String text) throws IOException {
+		FileOutputStream out = new FileOutputStream(file, true);
+		try {
+			out.write(text.getBytes("US-ASCII"));
+		} finally {
+			out.close();
+		}
+	}
+
+	private static String read(File file) throws IOException {
+		RandomAccessFile raf = new RandomAccessFile(file, "r");
+		try {
+			byte[] bytes = new byte[(int)raf.length()];
+			raf.readFully(bytes);
+			return new String(bytes, "US-ASCII");
+		} finally {
+			raf.close();
+		}
+	}
+
+	@Test
+	public void resumesAfterLastCompleteRow() throws IOException, InterruptedException {
+		File file = folder.newFile("results.csv");
+		writeRows(file, false, 0, 5);
+		long complete = file.length();
+		append(file, "5,ro");
+
+		ResultSink sink = new ResultSink(file, HEADER, true, 4, 2);
+		assertEquals(5, sink.nextTestId());
+		assertEquals(complete, file.length());
+		sink.close();
+
+		writeRows(file, true, 5, 8);
+		assertEquals(HEADER + "\n0,row,0.0\n1,row,0.25\n2,row,0.5\n3,row,0.75\n4,row,1.0\n"
+				+ "5,row,1.25\n6,row,1.5\n7,row,1.75\n", read(file));
+	}
+
+	@Test
+	public void resumesEmptyOrMissingFile() throws IOException, InterruptedException {
+		File file = folder.newFile("header.csv");
+		writeRows(file, false, 0, 0);
+		append(file, "0,r");
+		writeRows(file, true, 0, 1);
+		assertEquals(HEADER + "\n0,row,0.0\n", read(file));
+
+		File missing = new File(folder.getRoot(), "missing.csv");
+		writeRows(missing, true, 0, 1);
+		assertEquals(HEADER + "\n0,row,0.0\n", read(missing));
+	}
+
+	@Test
+	public void refusesOtherColumns() throws IOException, InterruptedException {
+		File file = folder.newFile("other.csv");
+		writeRows(file, false, 0, 3);
+		try {
+			new ResultSink(file, "TestID, Other", true, 4, 2);
+			fail("resumed " + file);
+		} catch (IOException e) {
+			assertTrue(e.getMessage().contains(file.toString()));
+		}
+	}
+
+	@Test
+	public void refusesRowWithoutTestId() throws IOException, InterruptedException {
+		File file = folder.newFile("broken.csv");
+		writeRows(file, false, 0, 3);
+		append(file, "x,row,1.0\n");
+		try {
+			new ResultSink(file, HEADER, true, 4, 2);
+			fail("resumed " + file);
+		} catch (IOException e) {
+			assertTrue(e.getMessage().contains(file.toString()));
+		}
+	}
+
+	private static String format(double value) throws IOException {
+		byte[] bytes = new ResultSink.Row().add(value).toBytes();
+		return new String(bytes, 0, bytes.length - 1, "US-ASCII");
+	}
+
+	@Test
+	public void formatsDoublesInFixedPoint() throws IOException {
+		assertEquals("0.0", format(0));
+		assertEquals("0.0", format(-0.0));
+		assertEquals("1.0", format(1));
+		assertEquals("0.1", format(0.1));
+		assertEquals("0.3", format(0.1 + 0.2));
+		assertEquals("-2.5", format(-2.5));
+		assertEquals("0.000001", format(0.000001));
+		assertEquals("0.0", format(0.0000001));
+		assertEquals("1234567.123457", format(1234567.1234567));
+		assertEquals("123456789012.0", format(123456789012.0));
+		assertEquals("1.0E20", format(1e20));
+		assertEquals("NaN", format(Double.NaN));
+		assertEquals("-Infinity", format(Double.NEGATIVE_INFINITY));
+	}
+
+	@Test
+	public void formatsRows() throws IOException {
+		byte[] bytes = new ResultSink.Row().add(Long.MIN_VALUE).add(-7).add(true).add("text")
+				.add(12.5).toBytes();
+		assertEquals("-9223372036854775808,-7,true,text,12.5\n", new String(bytes, "US-ASCII"));
+	}
+}
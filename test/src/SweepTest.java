@@ -0,0 +1,139 @@
+package src;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * A small sweep, compared row by row without the timing columns. The
+ * coloring pool has a single thread so that the speculative function colors
+ * the same way on every run.
+ */
+public class SweepTest {
+
+	private static final String HEADER = "TestID";
+	// Duration, Mean, Median, P90, P99, Min, Max, StdDev and CI95
+	private static final int FIRST_TIMING = 11;
+	private static final int LAST_TIMING = 18;
+	private static final int DURATION = 8;
+	private static final int SEED = 19;
+	private static final int COMPONENTS = 20;
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private final ForkJoinPool pool = new ForkJoinPool(1);
+
+	@After
+	public void shutDown() {
+		pool.shutdownNow();
+	}
+
+	private static Sweep sweep(long seed) {
+		return new Sweep(new int[] {3}, new int[] {6}, 0.3, 0.9, 0.3, 0.5, 1.0, 0.5, 2, 0, seed);
+	}
+
+	// runs sweep on threads threads into file, resuming it if resume is set
+	private void run(Sweep sweep, int threads, File file, boolean resume)
+			throws IOException, InterruptedException {
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		try {
+			ResultSink sink = new ResultSink(file, HEADER, resume, 16, 4);
+			sweep.run(executor, pool, sink);
+			sink.close();
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	// the rows of file without the header and the timing columns
+	private static List<String> rows(File file) throws IOException {
+		List<String> rows = new ArrayList<String>();
+		List<String> lines = Files.readAllLines(file.toPath(), Charset.forName("US-ASCII"));
+		for (String line : lines.subList(1, lines.size())) {
+			String[] columns = line.split(",");
+			StringBuilder row = new StringBuilder();
+			for (int c = 0; c < columns.length; c++) {
+				if (c != DURATION && (c < FIRST_TIMING || c > LAST_TIMING))
+					row.append(columns[c]).append(',');
+			}
+			rows.add(row.toString());
+		}
+		return rows;
+	}
+
+	@Test
+	public void sameRowsOnAnyNumberOfThreads() throws IOException, InterruptedException {
+		Sweep sweep = sweep(17);
+		File single = folder.newFile("single.csv");
+		run(sweep, 1, single, false);
+		List<String> expected = rows(single);
+		assertEquals(sweep.configurations.size() * Analysis.functions.length, expected.size());
+		for (int threads = 2; threads <= 8; threads *= 2) {
+			File file = folder.newFile(threads + ".csv");
+			run(sweep, threads, file, false);
+			assertEquals(expected, rows(file));
+		}
+	}
+
+	// a sweep cut off in the middle of a row and resumed writes the rest of the rows
+	@Test
+	public void resumedSweepMatchesFullRun() throws IOException, InterruptedException {
+		Sweep sweep = sweep(23);
+		File full = folder.newFile("full.csv");
+		run(sweep, 4, full, false);
+		File cut = folder.newFile("cut.csv");
+		run(sweep, 4, cut, false);
+		// keep the header, 5 rows and half of the sixth
+		List<String> lines = Files.readAllLines(cut.toPath(), Charset.forName("US-ASCII"));
+		StringBuilder kept = new StringBuilder();
+		for (int i = 0; i <= 5; i++) {
+			kept.append(lines.get(i)).append('\n');
+		}
+		kept.append(lines.get(6).substring(0, lines.get(6).length() / 2));
+		Files.write(cut.toPath(), kept.toString().getBytes("US-ASCII"));
+		run(sweep, 4, cut, true);
+		assertEquals(rows(full), rows(cut));
+	}
+
+	// the Seed column makes the graphs of a row again, and another seed gives other graphs
+	@Test
+	public void seedColumnRemakesTheGraphs() throws IOException, InterruptedException {
+		Sweep sweep = sweep(31);
+		File file = folder.newFile("seeded.csv");
+		run(sweep, 4, file, false);
+		List<String> lines = Files.readAllLines(file.toPath(), Charset.forName("US-ASCII"));
+		Sweep other = sweep(32);
+		for (int i = 0; i < sweep.configurations.size(); i++) {
+			Sweep.Configuration config = sweep.configurations.get(i);
+			String[] columns = lines.get(1 + config.firstTestId).split(",");
+			long seed = Long.parseLong(columns[SEED]);
+			assertEquals(sweep.configurationSeed(i), seed);
+			double components = 0;
+			for (int rep = 0; rep < sweep.meanCount; rep++) {
+				CompactGraph g = Sweep.graph(config, seed, rep);
+				assertArrayEquals(g.neighbors, Sweep.graph(config, seed, rep).neighbors);
+				components += Connectivity.components(g, pool).count;
+				assertFalse(Arrays.equals(g.neighbors,
+						Sweep.graph(config, other.configurationSeed(i), rep).neighbors));
+			}
+			assertEquals(components / sweep.meanCount, Double.parseDouble(columns[COMPONENTS]), 0);
+		}
+	}
+}
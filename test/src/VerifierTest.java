@@ -0,0 +1,77 @@
+package src;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.After;
+import org.junit.Test;
+
+/**
+ * Verifier on an even cycle, once below GRAIN and once above it so the
+ * parallel check is used
+ */
+public class VerifierTest {
+
+	private final ForkJoinPool pool = new ForkJoinPool(4);
+
+	@After
+	public void shutDown() {
+		pool.shutdownNow();
+	}
+
+	// colors 1 and 2 around the cycle
+	private static Coloring alternating(int n) {
+		Coloring c = new Coloring(n);
+		for (int v = 0; v < n; v++) {
+			c.color[v] = 1 + v % 2;
+		}
+		return c;
+	}
+
+	private void check(int n) {
+		CompactGraph g = Graphs.cycle(n);
+		Coloring proper = alternating(n);
+		Coloring clash = alternating(n);
+		clash.color[0] = 2; // same as both its neighbors
+		Coloring uncolored = alternating(n);
+		uncolored.color[n / 2] = 0;
+		Coloring[] all = {proper, clash, uncolored};
+
+		long[] expected = {0, 2, 1};
+		assertArrayEquals(expected, Verifier.conflicts(g, all, false, pool));
+		for (int j = 0; j < all.length; j++) {
+			assertEquals(expected[j], Verifier.conflicts(g, new Coloring[] {all[j]}, false, pool)[0]);
+		}
+		assertTrue(Verifier.isProper(g, proper, pool));
+		assertFalse(Verifier.isProper(g, clash, pool));
+		assertFalse(Verifier.isProper(g, uncolored, pool));
+		assertTrue(Verifier.conflicts(g, new Coloring[] {clash}, true, pool)[0] > 0);
+	}
+
+	@Test
+	public void smallGraph() {
+		check(10);
+	}
+
+	@Test
+	public void largeGraph() {
+		check(2 * Verifier.GRAIN + 2);
+	}
+
+	// every function's coloring of a generated graph is proper
+	@Test
+	public void functionsColorProperly() {
+		CompactGraph g = GraphCreator.createConnectedEdgeStream(300, 5, 0.3, 300,
+				Sweep.setSizes(300, 5), 1).toCompactGraph();
+		Coloring[] colorings = new Coloring[Analysis.functions.length];
+		for (int f = 0; f < colorings.length; f++) {
+			colorings[f] = new Coloring(g.numNodes);
+			Analysis.functions[f].runTest(g, colorings[f]);
+		}
+		assertArrayEquals(new long[colorings.length], Verifier.conflicts(g, colorings, false, pool));
+	}
+}
@@ -0,0 +1,89 @@
+package src;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+public class VertexHeapTest {
+
+	@Test
+	public void highestKeyThenLowestVertexFirst() {
+		VertexHeap heap = new VertexHeap(5);
+		heap.add(4, 1);
+		heap.add(2, 3);
+		heap.add(0, 1);
+		heap.add(3, 3);
+		heap.add(1, 0);
+		assertEquals(2, heap.poll());
+		assertEquals(3, heap.poll());
+		assertEquals(0, heap.poll());
+		assertEquals(4, heap.poll());
+		assertEquals(1, heap.poll());
+		assertTrue(heap.isEmpty());
+	}
+
+	@Test
+	public void tiesGoToHigherDegree() {
+		VertexHeap heap = new VertexHeap(new int[] {1, 4, 2, 4});
+		for (int v = 0; v < 4; v++) {
+			heap.add(v, 0);
+		}
+		assertEquals(1, heap.poll());
+		assertEquals(3, heap.poll());
+		assertEquals(2, heap.poll());
+		assertEquals(0, heap.poll());
+	}
+
+	@Test
+	public void keysOnlyGoUp() {
+		VertexHeap heap = new VertexHeap(3);
+		heap.add(0, 5);
+		heap.add(1, 2);
+		heap.add(2, 4);
+		heap.increaseKey(1, 1);
+		assertEquals(2, heap.key(1));
+		heap.increaseKey(1, 6);
+		assertEquals(6, heap.key(1));
+		assertEquals(1, heap.poll());
+		assertFalse(heap.contains(1));
+		assertTrue(heap.contains(0));
+		assertEquals(0, heap.poll());
+		assertEquals(2, heap.poll());
+	}
+
+	// random adds, raises and polls against a plain scan for the best vertex
+	@Test
+	public void matchesLinearScan() {
+		Random random = new Random(2);
+		int n = 500;
+		VertexHeap heap = new VertexHeap(n);
+		int[] key = new int[n];
+		boolean[] in = new boolean[n];
+		for (int v = 0; v < n; v++) {
+			key[v] = random.nextInt(20);
+			heap.add(v, key[v]);
+			in[v] = true;
+		}
+		for (int left = n; left > 0; left--) {
+			for (int r = 0; r < 5; r++) {
+				int v = random.nextInt(n);
+				if (in[v]) {
+					key[v] = Math.max(key[v], key[v] + random.nextInt(5) - 2);
+					heap.increaseKey(v, key[v]);
+				}
+			}
+			int best = -1;
+			for (int v = 0; v < n; v++) {
+				if (in[v] && (best < 0 || key[v] > key[best]))
+					best = v;
+			}
+			assertEquals(best, heap.poll());
+			in[best] = false;
+		}
+		assertTrue(heap.isEmpty());
+	}
+}